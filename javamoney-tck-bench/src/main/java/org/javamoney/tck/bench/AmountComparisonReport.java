@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck.bench;
+
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Compares the amount classes benchmarked side by side, for all benchmarks having the parameter
+ * {@link BenchRunner#AMOUNT_CLASS_PARAM}. For each operation, i.e. benchmark method and its other parameters, the
+ * report lists the throughput, the average time, the latency percentiles (from {@link Mode#SampleTime} results) and
+ * the bytes allocated per operation (from the JMH gc profiler) of each amount class. The reference amount class, e.g.
+ * the TCK's {@link org.javamoney.tck.tests.internal.TestAmount}, which implements most operations as no-op, shows the
+ * cost of the API and benchmark overhead; the throughput of the other classes is also given relative to it. The
+ * best value of the classes other than the reference is marked. The report is written as Markdown and HTML.
+ */
+public final class AmountComparisonReport {
+
+    private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9};
+
+    /**
+     * The metrics compared, in report order.
+     */
+    private enum Metric {
+        THROUGHPUT("throughput", true),
+        AVERAGE("avg time", false),
+        P50("p50", false),
+        P90("p90", false),
+        P99("p99", false),
+        P999("p99.9", false),
+        ALLOCATION("allocated", false);
+
+        private final String label;
+        private final boolean higherIsBetter;
+
+        Metric(String label, boolean higherIsBetter) {
+            this.label = label;
+            this.higherIsBetter = higherIsBetter;
+        }
+    }
+
+    /**
+     * A measured value with its unit.
+     */
+    private static final class Value {
+        private final double value;
+        private final String unit;
+
+        private Value(double value, String unit) {
+            this.value = value;
+            this.unit = unit;
+        }
+    }
+
+    private final String referenceClass;
+    private final Set<String> amountClasses = new LinkedHashSet<>();
+    /**
+     * The values by benchmark class, operation, metric and amount class.
+     */
+    private final Map<String, Map<String, Map<Metric, Map<String, Value>>>> values = new TreeMap<>();
+
+    private AmountComparisonReport(String referenceClass) {
+        this.referenceClass = referenceClass;
+    }
+
+    /**
+     * Evaluates the given results.
+     *
+     * @param results        the results of a benchmark run, not null.
+     * @param referenceClass the name of the reference amount class, or null.
+     * @return the report, empty if no benchmark with the amount class parameter was run.
+     */
+    public static AmountComparisonReport of(Collection<RunResult> results, String referenceClass) {
+        AmountComparisonReport report = new AmountComparisonReport(referenceClass);
+        for (RunResult result : results) {
+            String amountClass = result.getParams().getParam(BenchRunner.AMOUNT_CLASS_PARAM);
+            if (amountClass != null) {
+                report.add(amountClass, result);
+            }
+        }
+        if (referenceClass != null && report.amountClasses.remove(referenceClass)) {
+            report.amountClasses.add(referenceClass);
+        }
+        return report;
+    }
+
+    private void add(String amountClass, RunResult result) {
+        amountClasses.add(amountClass);
+        String benchmark = result.getParams().getBenchmark();
+        int index = benchmark.lastIndexOf('.');
+        String benchmarkClass = benchmark.substring(benchmark.lastIndexOf('.', index - 1) + 1, index);
+        StringBuilder operation = new StringBuilder(benchmark.substring(index + 1));
+        String separator = " (";
+        for (String key : result.getParams().getParamsKeys()) {
+            if (!BenchRunner.AMOUNT_CLASS_PARAM.equals(key)) {
+                operation.append(separator).append(key).append('=').append(result.getParams().getParam(key));
+                separator = ", ";
+            }
+        }
+        if (!" (".equals(separator)) {
+            operation.append(')');
+        }
+        Map<String, Map<Metric, Map<String, Value>>> operations = values.get(benchmarkClass);
+        if (operations == null) {
+            operations = new TreeMap<>();
+            values.put(benchmarkClass, operations);
+        }
+        Map<Metric, Map<String, Value>> metrics = operations.get(operation.toString());
+        if (metrics == null) {
+            metrics = new TreeMap<>();
+            operations.put(operation.toString(), metrics);
+        }
+        Result primary = result.getPrimaryResult();
+        switch (result.getParams().getMode()) {
+            case Throughput:
+                put(metrics, Metric.THROUGHPUT, amountClass, primary.getScore(), primary.getScoreUnit());
+                break;
+            case AverageTime:
+                put(metrics, Metric.AVERAGE, amountClass, primary.getScore(), primary.getScoreUnit());
+                break;
+            case SampleTime:
+                Metric[] percentileMetrics = {Metric.P50, Metric.P90, Metric.P99, Metric.P999};
+                for (int i = 0; i < PERCENTILES.length; i++) {
+                    put(metrics, percentileMetrics[i], amountClass,
+                            primary.getStatistics().getPercentile(PERCENTILES[i]), primary.getScoreUnit());
+                }
+                break;
+            default:
+                break;
+        }
+        Result allocation = result.getSecondaryResults().get(ALLOCATION_METRIC);
+        if (allocation != null) {
+            put(metrics, Metric.ALLOCATION, amountClass, allocation.getScore(), allocation.getScoreUnit());
+        }
+    }
+
+    private static void put(Map<Metric, Map<String, Value>> metrics, Metric metric, String amountClass,
+                            double value, String unit) {
+        Map<String, Value> byClass = metrics.get(metric);
+        if (byClass == null) {
+            byClass = new LinkedHashMap<>();
+            metrics.put(metric, byClass);
+        }
+        // the allocations are reported by all modes, the first one is kept
+        if (!byClass.containsKey(amountClass)) {
+            byClass.put(amountClass, new Value(value, unit));
+        }
+    }
+
+    /**
+     * @return true, if no benchmark with the amount class parameter was run.
+     */
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    /**
+     * Writes the report as Markdown.
+     *
+     * @param file the target file, not null.
+     */
+    public void writeMarkdown(File file) {
+        try (PrintWriter w = open(file)) {
+            w.println("# JSR 354 Amount Classes Compared");
+            w.println();
+            w.println(getIntroduction());
+            for (Map.Entry<String, Map<String, Map<Metric, Map<String, Value>>>> benchmark : values.entrySet()) {
+                w.println();
+                w.println("## " + benchmark.getKey());
+                w.println();
+                StringBuilder header = new StringBuilder("| Operation | Metric |");
+                StringBuilder separator = new StringBuilder("|---|---|");
+                for (String amountClass : amountClasses) {
+                    header.append(' ').append(getColumnTitle(amountClass)).append(" |");
+                    separator.append("---:|");
+                }
+                w.println(header);
+                w.println(separator);
+                for (Map.Entry<String, Map<Metric, Map<String, Value>>> operation : benchmark.getValue().entrySet()) {
+                    String name = operation.getKey();
+                    for (Map.Entry<Metric, Map<String, Value>> metric : operation.getValue().entrySet()) {
+                        StringBuilder row = new StringBuilder("| ").append(name.replace("|", "\\|")).append(" | ")
+                                .append(metric.getKey().label).append(" |");
+                        String best = getBest(metric.getKey(), metric.getValue());
+                        for (String amountClass : amountClasses) {
+                            String cell = format(metric.getKey(), metric.getValue(), amountClass);
+                            row.append(' ').append(amountClass.equals(best) ? "**" + cell + "**" : cell).append(" |");
+                        }
+                        w.println(row);
+                        name = "";
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the report as HTML.
+     *
+     * @param file the target file, not null.
+     */
+    public void writeHtml(File file) {
+        try (PrintWriter w = open(file)) {
+            w.println("<!DOCTYPE html>");
+            w.println("<html><head><meta charset=\"UTF-8\"><title>JSR 354 Amount Classes Compared</title>");
+            w.println("<style>body{font-family:sans-serif}table{border-collapse:collapse;margin-bottom:2em}"
+                    + "th,td{border:1px solid #ccc;padding:2px 8px}td.v{text-align:right}.best{font-weight:bold;"
+                    + "background:#dfd}.ref{color:#777}</style></head><body>");
+            w.println("<h1>JSR 354 Amount Classes Compared</h1>");
+            w.println("<p>" + html(getIntroduction()) + "</p>");
+            for (Map.Entry<String, Map<String, Map<Metric, Map<String, Value>>>> benchmark : values.entrySet()) {
+                w.println("<h2>" + html(benchmark.getKey()) + "</h2>");
+                w.println("<table><tr><th>Operation</th><th>Metric</th>");
+                for (String amountClass : amountClasses) {
+                    w.println("<th title=\"" + html(amountClass) + "\">" + html(getColumnTitle(amountClass))
+                            + "</th>");
+                }
+                w.println("</tr>");
+                for (Map.Entry<String, Map<Metric, Map<String, Value>>> operation : benchmark.getValue().entrySet()) {
+                    boolean first = true;
+                    for (Map.Entry<Metric, Map<String, Value>> metric : operation.getValue().entrySet()) {
+                        w.print("<tr>");
+                        if (first) {
+                            w.print("<td rowspan=\"" + operation.getValue().size() + "\">" + html(operation.getKey())
+                                    + "</td>");
+                            first = false;
+                        }
+                        w.print("<td>" + html(metric.getKey().label) + "</td>");
+                        String best = getBest(metric.getKey(), metric.getValue());
+                        for (String amountClass : amountClasses) {
+                            String cssClass = amountClass.equals(best) ? "v best"
+                                    : amountClass.equals(referenceClass) ? "v ref" : "v";
+                            w.print("<td class=\"" + cssClass + "\">"
+                                    + html(format(metric.getKey(), metric.getValue(), amountClass)) + "</td>");
+                        }
+                        w.println("</tr>");
+                    }
+                }
+                w.println("</table>");
+            }
+            w.println("</body></html>");
+        }
+    }
+
+    private String getIntroduction() {
+        StringBuilder b = new StringBuilder("Benchmarked on ").append(new Date()).append(" with Java ")
+                .append(System.getProperty("java.version")).append(". Latency percentiles require the mode ")
+                .append("sample (-bm sample), allocations the gc profiler (-prof gc). The best value is marked");
+        if (referenceClass != null && amountClasses.contains(referenceClass)) {
+            b.append(" not considering the reference ").append(referenceClass)
+                    .append(", throughputs are also given relative to the reference");
+        }
+        return b.append('.').toString();
+    }
+
+    private String getColumnTitle(String amountClass) {
+        String title = amountClass.substring(amountClass.lastIndexOf('.') + 1);
+        return amountClass.equals(referenceClass) ? title + " (reference)" : title;
+    }
+
+    private String getBest(Metric metric, Map<String, Value> byClass) {
+        String best = null;
+        double bestValue = 0.0;
+        int candidates = 0;
+        for (Map.Entry<String, Value> en : byClass.entrySet()) {
+            if (en.getKey().equals(referenceClass) || Double.isNaN(en.getValue().value)) {
+                continue;
+            }
+            candidates++;
+            double value = en.getValue().value;
+            if (best == null || (metric.higherIsBetter ? value > bestValue : value < bestValue)) {
+                best = en.getKey();
+                bestValue = value;
+            }
+        }
+        return candidates > 1 ? best : null;
+    }
+
+    private String format(Metric metric, Map<String, Value> byClass, String amountClass) {
+        Value value = byClass.get(amountClass);
+        if (value == null || Double.isNaN(value.value)) {
+            return "-";
+        }
+        String text = String.format(Locale.ENGLISH, metric == Metric.ALLOCATION ? "%,.0f %s" : "%,.4g %s",
+                value.value, value.unit);
+        Value reference = referenceClass != null ? byClass.get(referenceClass) : null;
+        if (metric == Metric.THROUGHPUT && reference != null && !amountClass.equals(referenceClass)
+                && reference.value > 0) {
+            text += String.format(Locale.ENGLISH, " (%.2fx)", value.value / reference.value);
+        }
+        return text;
+    }
+
+    private static PrintWriter open(File file) {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IllegalStateException("Cannot create directory " + parent);
+        }
+        try {
+            return new PrintWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException("IO Error", e);
+        }
+    }
+
+    private static String html(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
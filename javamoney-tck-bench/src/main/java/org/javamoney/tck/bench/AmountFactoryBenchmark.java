@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryAmountFactory;
+import javax.money.MonetaryAmountFactoryQuery;
+import javax.money.MonetaryAmountFactoryQueryBuilder;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks resolving amount factories by type, by {@link MonetaryAmountFactoryQuery} as done by
+ * {@link org.javamoney.tck.TestUtils#createAmountWithScale(int)} and
+ * {@link org.javamoney.tck.TestUtils#createAmountWithPrecision(int)}, and the default factory, as well as creating
+ * amounts of the amount classes configured. The {@code ...AndCreate} benchmarks resolve the factory on every call,
+ * comparing them with {@code create} shows whether the factory resolution must be hoisted out of per-request code.
+ * The lookups not depending on the amount class are benchmarked once, the others for each amount class, see
+ * {@link AmountType}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AmountFactoryBenchmark {
+
+    private static final BigDecimal NUMBER = new BigDecimal("1234.56");
+
+    /**
+     * The scale queried, as by {@link org.javamoney.tck.TestUtils#createAmountWithScale(int)}.
+     */
+    private static final int MAX_SCALE = 5;
+
+    /**
+     * The precision queried, as by {@link org.javamoney.tck.TestUtils#createAmountWithPrecision(int)}.
+     */
+    private static final int PRECISION = 20;
+
+    private MonetaryAmountFactoryQuery scaleQuery;
+    private MonetaryAmountFactoryQuery precisionQuery;
+
+    /**
+     * The amount class benchmarked, only used by the benchmarks taking it as argument, so the factory lookups not
+     * depending on the amount class are not repeated for each class.
+     */
+    @State(Scope.Benchmark)
+    public static class AmountType {
+
+        /**
+         * The amount class benchmarked, set by {@link BenchRunner}.
+         */
+        @Param({})
+        public String amountClass;
+
+        private Class<? extends MonetaryAmount> type;
+        private MonetaryAmountFactoryQuery typeQuery;
+        private MonetaryAmountFactory<?> factory;
+        private CurrencyUnit currency;
+
+        @Setup
+        public void setup() throws ClassNotFoundException {
+            type = Class.forName(amountClass).asSubclass(MonetaryAmount.class);
+            typeQuery = MonetaryAmountFactoryQueryBuilder.of().setTargetType(type).build();
+            factory = Monetary.getAmountFactory(type);
+            currency = Monetary.getCurrency("CHF");
+            MonetaryAmountFactory<?> queried = Monetary.getAmountFactory(typeQuery);
+            if (!type.equals(queried.getAmountType())) {
+                throw new IllegalStateException("Expected factory for " + amountClass + " from query " + typeQuery
+                        + ", but was: " + queried.getAmountType().getName());
+            }
+        }
+    }
+
+    @Setup
+    public void setup() {
+        scaleQuery = MonetaryAmountFactoryQueryBuilder.of().setMaxScale(MAX_SCALE).build();
+        precisionQuery = MonetaryAmountFactoryQueryBuilder.of().setPrecision(PRECISION).build();
+        // fail early if the implementation does not support the queries of TestUtils
+        Monetary.getAmountFactory(scaleQuery);
+        Monetary.getAmountFactory(precisionQuery);
+    }
+
+    @Benchmark
+    public MonetaryAmountFactory<?> getAmountFactoryByType(AmountType amount) {
+        return Monetary.getAmountFactory(amount.type);
+    }
+
+    @Benchmark
+    public MonetaryAmountFactory<?> getAmountFactoryByTypeQuery(AmountType amount) {
+        return Monetary.getAmountFactory(amount.typeQuery);
+    }
+
+    @Benchmark
+    public MonetaryAmountFactory<?> getAmountFactoryByScaleQuery() {
+        return Monetary.getAmountFactory(scaleQuery);
+    }
+
+    @Benchmark
+    public MonetaryAmountFactory<?> getAmountFactoryByPrecisionQuery() {
+        return Monetary.getAmountFactory(precisionQuery);
+    }
+
+    @Benchmark
+    public MonetaryAmountFactory<?> getAmountFactoryByNewQuery() {
+        return Monetary.getAmountFactory(MonetaryAmountFactoryQueryBuilder.of().setMaxScale(MAX_SCALE).build());
+    }
+
+    @Benchmark
+    public MonetaryAmountFactory<?> getDefaultAmountFactory() {
+        return Monetary.getDefaultAmountFactory();
+    }
+
+    @Benchmark
+    public MonetaryAmount create(AmountType amount) {
+        return amount.factory.setCurrency(amount.currency).setNumber(NUMBER).create();
+    }
+
+    @Benchmark
+    public MonetaryAmount createWithCurrencyCode(AmountType amount) {
+        return amount.factory.setCurrency("CHF").setNumber(NUMBER).create();
+    }
+
+    @Benchmark
+    public MonetaryAmount getAmountFactoryByTypeAndCreate(AmountType amount) {
+        return Monetary.getAmountFactory(amount.type).setCurrency(amount.currency).setNumber(NUMBER).create();
+    }
+
+    @Benchmark
+    public MonetaryAmount getAmountFactoryByQueryAndCreate(AmountType amount) {
+        return Monetary.getAmountFactory(amount.typeQuery).setCurrency(amount.currency).setNumber(NUMBER).create();
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryAmountFactory;
+import javax.money.format.AmountFormatQuery;
+import javax.money.format.AmountFormatQueryBuilder;
+import javax.money.format.MonetaryAmountFormat;
+import javax.money.format.MonetaryFormats;
+import java.math.BigDecimal;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks looking up amount formats and formatting and parsing amounts for a representative set of locales and
+ * the amount classes configured, as tested by {@link org.javamoney.tck.tests.format.FormattingMonetaryAmountsTest}.
+ * The lookups are measured separately from formatting and parsing with a format looked up once, so the cost of not
+ * caching formats can be read from {@code getAmountFormatAndFormat}. The lookups by locale and query do not depend
+ * on the amount class and are benchmarked for each locale only, see {@link AmountType}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class AmountFormatBenchmark {
+
+    private static final String CURRENCY = "USD";
+
+    /**
+     * The locale as language tag, must be contained in {@link MonetaryFormats#getAvailableLocales()}.
+     */
+    @Param({"en-US", "de-CH", "fr-FR", "ja-JP", "pt-BR", "ru-RU"})
+    public String locale;
+
+    private Locale formatLocale;
+    private AmountFormatQuery localeQuery;
+
+    /**
+     * The amount class benchmarked, only used by the benchmarks taking it as argument, so the format lookups not
+     * depending on the amount class are not repeated for each class.
+     */
+    @State(Scope.Benchmark)
+    public static class AmountType {
+
+        /**
+         * The amount class benchmarked, set by {@link BenchRunner}.
+         */
+        @Param({})
+        public String amountClass;
+
+        private AmountFormatQuery factoryQuery;
+        private MonetaryAmountFormat format;
+        private MonetaryAmount amount;
+        private String formatted;
+
+        @Setup
+        public void setup(AmountFormatBenchmark benchmark) throws ClassNotFoundException {
+            MonetaryAmountFactory<?> factory = Monetary.getAmountFactory(
+                    Class.forName(amountClass).asSubclass(MonetaryAmount.class));
+            amount = factory.setCurrency(CURRENCY).setNumber(new BigDecimal("12345.67")).create();
+            factoryQuery = AmountFormatQueryBuilder.of(benchmark.formatLocale).setMonetaryAmountFactory(factory)
+                    .build();
+            format = MonetaryFormats.getAmountFormat(factoryQuery);
+            formatted = format.format(amount);
+            // formats may round, e.g. to the locale's currency digits, but must parse what they produce
+            MonetaryAmount parsed = format.parse(formatted);
+            if (!formatted.equals(format.format(parsed))) {
+                throw new IllegalStateException("Round trip failed for " + amount + " with locale "
+                        + benchmark.locale + ": '" + formatted + "' parsed to " + parsed);
+            }
+        }
+    }
+
+    @Setup
+    public void setup() {
+        formatLocale = Locale.forLanguageTag(locale);
+        if (!MonetaryFormats.getAvailableLocales().contains(formatLocale)) {
+            throw new IllegalArgumentException("Locale not available from MonetaryFormats: " + locale);
+        }
+        localeQuery = AmountFormatQuery.of(formatLocale);
+    }
+
+    @Benchmark
+    public MonetaryAmountFormat getAmountFormatByLocale() {
+        return MonetaryFormats.getAmountFormat(formatLocale);
+    }
+
+    @Benchmark
+    public MonetaryAmountFormat getAmountFormatByQuery() {
+        return MonetaryFormats.getAmountFormat(localeQuery);
+    }
+
+    @Benchmark
+    public MonetaryAmountFormat getAmountFormatByFactoryQuery(AmountType amount) {
+        return MonetaryFormats.getAmountFormat(amount.factoryQuery);
+    }
+
+    @Benchmark
+    public String format(AmountType amount) {
+        return amount.format.format(amount.amount);
+    }
+
+    @Benchmark
+    public MonetaryAmount parse(AmountType amount) {
+        return amount.format.parse(amount.formatted);
+    }
+
+    @Benchmark
+    public String getAmountFormatAndFormat(AmountType amount) {
+        return MonetaryFormats.getAmountFormat(amount.factoryQuery).format(amount.amount);
+    }
+}
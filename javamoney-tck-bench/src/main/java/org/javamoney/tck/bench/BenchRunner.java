@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck.bench;
+
+import org.javamoney.tck.TCKTestSetup;
+import org.javamoney.tck.tests.internal.TestAmount;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.money.Monetary;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Main class running the TCK benchmarks for the implementation under test. The benchmarks are parameterized with
+ * the amount classes returned by {@link org.javamoney.tck.JSR354TestConfiguration#getAmountClasses()}, so the
+ * implementation must register its test configuration as for the TCK itself. Alternatively the amount classes can
+ * be passed as comma separated list with {@code -DamountClasses=...}. All arguments are passed to JMH, e.g.
+ * <pre>
+ * java -jar target/benchmarks.jar MonetaryAmountArithmeticBenchmark -f 1 -rf json
+ * </pre>
+ * The JMH options {@code -h}, {@code -l}, {@code -lp}, {@code -lprof} and {@code -lrf} show the requested information
+ * without running any benchmark, as with JMH's own main class.
+ * With {@code -DreferenceAmount=true} the TCK's {@link TestAmount} is benchmarked as reference in addition to the
+ * amount classes configured. It passes the setups validating the results, e.g. the format round trip of
+ * {@link AmountFormatBenchmark} and the scales checked by {@link RoundingBenchmark}, since its factory creates
+ * amounts with the unchanged {@link java.math.BigDecimal} number set. With {@code -DfullComparison=true} and no
+ * benchmark modes and profilers passed, the benchmarks are run in the modes {@code thrpt,avgt,sample} with the gc
+ * profiler, so the {@link AmountComparisonReport} written after the run contains the throughput, latency
+ * percentiles and allocations of each amount class, otherwise it contains the modes run only. The report is written
+ * to {@code ./target/tck-bench-comparison.md} and {@code .html}, the base name can be set with
+ * {@code -DcomparisonReport=...}.
+ * <p>
+ * The results can be stored as baseline and compared with the baseline in later runs, see {@link BenchmarkBaseline}:
+ * <ul>
+ *     <li>-DsaveBaseline=baseline.json for writing the results as baseline.</li>
+ *     <li>-DbaselineVersion=... for defining the version recorded in the baseline (default: the implementation
+ *     version of the default amount class' package).</li>
+ *     <li>-Dbaseline=baseline.json for comparing the results with the given baseline. The comparison is written
+ *     to the regression report, the process exits with status 1 if regressions are found.</li>
+ *     <li>-DregressionThreshold=n for defining the change in percent flagged as regression (default: 10). It can be
+ *     set per benchmark class or method, e.g. {@code -DregressionThreshold.MonetaryAmountArithmeticBenchmark=30}
+ *     or {@code -DregressionThreshold.MonetaryAmountArithmeticBenchmark.addIntegers=5}.</li>
+ *     <li>-DregressionConfidence=n for defining the confidence level in percent, at which the confidence intervals
+ *     of the baseline and the current results must not overlap to flag a regression (default: 99.9, as JMH).</li>
+ *     <li>-DregressionReport=file.txt for defining the regression report file (default: next to the TCK report,
+ *     ./target/tck-bench-regressions.txt).</li>
+ * </ul>
+ */
+public final class BenchRunner {
+
+    /**
+     * Name of the benchmark parameter containing the amount class name.
+     */
+    public static final String AMOUNT_CLASS_PARAM = "amountClass";
+
+    private static final String THRESHOLD_PROPERTY = "regressionThreshold";
+
+    private BenchRunner() {
+    }
+
+    /**
+     * Get the names of the amount classes to be benchmarked.
+     *
+     * @return the class names, never empty.
+     */
+    static String[] getAmountClassNames() {
+        List<String> names = new ArrayList<>();
+        String amountClasses = System.getProperty("amountClasses");
+        if (amountClasses != null) {
+            for (String name : amountClasses.split(",")) {
+                if (!name.trim().isEmpty()) {
+                    names.add(name.trim());
+                }
+            }
+        } else {
+            for (Class type : TCKTestSetup.getTestConfiguration().getAmountClasses()) {
+                names.add(type.getName());
+            }
+        }
+        if (names.isEmpty()) {
+            throw new IllegalStateException("No amount classes configured.");
+        }
+        if (getReferenceClassName() != null && !names.contains(getReferenceClassName())) {
+            names.add(getReferenceClassName());
+        }
+        return names.toArray(new String[names.size()]);
+    }
+
+    /**
+     * Get the name of the reference amount class benchmarked in addition to the amount classes configured.
+     *
+     * @return the class name, or null, if not enabled.
+     */
+    static String getReferenceClassName() {
+        if ("true".equalsIgnoreCase(System.getProperty("referenceAmount"))) {
+            return TestAmount.class.getName();
+        }
+        return null;
+    }
+
+    /**
+     * Runs the benchmarks and prints the evaluations derived from multiple results, e.g. the provider chain overhead
+     * per hop.
+     *
+     * @param args the JMH command line arguments.
+     * @throws CommandLineOptionException if the arguments are invalid.
+     * @throws RunnerException            if the benchmarks cannot be run.
+     */
+    public static void main(String... args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (showInformation(commandLine)) {
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (!commandLine.getParameter(AMOUNT_CLASS_PARAM).hasValue()) {
+            options.param(AMOUNT_CLASS_PARAM, getAmountClassNames());
+        }
+        if ("true".equalsIgnoreCase(System.getProperty("fullComparison"))) {
+            if (commandLine.getBenchModes().isEmpty()) {
+                options.mode(Mode.Throughput).mode(Mode.AverageTime).mode(Mode.SampleTime);
+            }
+            if (commandLine.getProfilers().isEmpty()) {
+                options.addProfiler(GCProfiler.class);
+            }
+        }
+        Collection<RunResult> results = new Runner(options.build()).run();
+        ProviderChainBenchmark.printPerHopOverhead(results, System.out);
+        AmountComparisonReport comparison = AmountComparisonReport.of(results, getReferenceClassName());
+        if (!comparison.isEmpty()) {
+            String comparisonReport = System.getProperty("comparisonReport", "./target/tck-bench-comparison");
+            comparison.writeMarkdown(new File(comparisonReport + ".md"));
+            comparison.writeHtml(new File(comparisonReport + ".html"));
+            System.out.println("Amount classes compared in " + new File(comparisonReport + ".html").getAbsolutePath());
+        }
+        String saveBaseline = System.getProperty("saveBaseline");
+        String baselineFile = System.getProperty("baseline");
+        if (saveBaseline == null && baselineFile == null) {
+            return;
+        }
+        BenchmarkBaseline current = BenchmarkBaseline.of(getVersion(), results);
+        if (saveBaseline != null) {
+            current.write(new File(saveBaseline));
+            System.out.println("Baseline " + current.getVersion() + " written to " + saveBaseline);
+        }
+        if (baselineFile != null && compare(BenchmarkBaseline.read(new File(baselineFile)), current) > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Shows the help or lists the benchmarks, parameters, profilers or result formats, if requested, as done by
+     * {@link org.openjdk.jmh.Main}.
+     *
+     * @return true, if information was requested, i.e. no benchmarks must be run.
+     */
+    private static boolean showInformation(CommandLineOptions commandLine) {
+        if (commandLine.shouldHelp()) {
+            try {
+                commandLine.showHelp();
+            } catch (IOException e) {
+                throw new IllegalStateException("IO Error", e);
+            }
+            return true;
+        }
+        if (commandLine.shouldList()) {
+            new Runner(commandLine).list();
+            return true;
+        }
+        if (commandLine.shouldListWithParams()) {
+            new Runner(commandLine).listWithParams(commandLine);
+            return true;
+        }
+        if (commandLine.shouldListProfilers()) {
+            commandLine.listProfilers();
+            return true;
+        }
+        if (commandLine.shouldListResultFormats()) {
+            commandLine.listResultFormats();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Compares the current results with the baseline and writes the regression report.
+     *
+     * @return the number of regressions found.
+     */
+    static int compare(BenchmarkBaseline baseline, BenchmarkBaseline current) {
+        Map<String, Double> thresholds = new HashMap<>();
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith(THRESHOLD_PROPERTY + '.')) {
+                thresholds.put(name.substring(THRESHOLD_PROPERTY.length() + 1), getPercentage(name, 0.0));
+            }
+        }
+        File reportFile = new File(System.getProperty("regressionReport", "./target/tck-bench-regressions.txt"));
+        File parent = reportFile.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IllegalStateException("Cannot create directory " + parent);
+        }
+        int regressions;
+        try (PrintWriter report = new PrintWriter(new OutputStreamWriter(new FileOutputStream(reportFile),
+                StandardCharsets.UTF_8))) {
+            regressions = baseline.compare(current, getPercentage(THRESHOLD_PROPERTY, 10.0), thresholds,
+                    getPercentage("regressionConfidence", 99.9), report);
+        } catch (IOException e) {
+            throw new IllegalStateException("IO Error", e);
+        }
+        System.out.println(regressions + " regressions against baseline " + baseline.getVersion()
+                + ", see " + reportFile.getAbsolutePath());
+        return regressions;
+    }
+
+    private static double getPercentage(String property, double defaultValue) {
+        String value = System.getProperty(property);
+        try {
+            return (value == null ? defaultValue : Double.parseDouble(value.trim())) / 100.0;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid percentage " + property + ": " + value, e);
+        }
+    }
+
+    private static String getVersion() {
+        String version = System.getProperty("baselineVersion");
+        if (version == null) {
+            Package implementation = Monetary.getDefaultAmountFactory().getAmountType().getPackage();
+            version = implementation != null ? implementation.getImplementationVersion() : null;
+        }
+        return version != null ? version : "unknown";
+    }
+}
@@ -0,0 +1,550 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck.bench;
+
+import org.apache.commons.math3.distribution.TDistribution;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.util.Statistics;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.javamoney.tck.TCKJsonReporter.quote;
+
+/**
+ * Benchmark results stored as versioned JSON baseline, so later runs, e.g. with an upgraded implementation, can be
+ * compared against them. Besides the primary scores the bytes allocated per operation reported by the JMH gc
+ * profiler ({@code -prof gc}) are stored. Each result keeps its sample count, mean and standard deviation, so the
+ * confidence intervals can be evaluated at any confidence level when comparing, see
+ * {@link #compare(BenchmarkBaseline, double, Map, double, PrintWriter)}.
+ */
+public final class BenchmarkBaseline {
+
+    /**
+     * The version of the JSON format written.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final String ALLOCATION_UNIT = "B/op";
+
+    private final String version;
+    private final String created;
+    private final String jvm;
+    private final Map<String, Entry> entries = new TreeMap<>();
+
+    /**
+     * A single result stored.
+     */
+    public static final class Entry {
+        private final String benchmark;
+        private final String mode;
+        private final Map<String, String> params;
+        private final String metric;
+        private final String unit;
+        private final boolean higherIsBetter;
+        private final long n;
+        private final double score;
+        private final double standardDeviation;
+
+        private Entry(String benchmark, String mode, Map<String, String> params, String metric, String unit,
+                      boolean higherIsBetter, long n, double score, double standardDeviation) {
+            this.benchmark = benchmark;
+            this.mode = mode;
+            this.params = Collections.unmodifiableMap(new TreeMap<>(params));
+            this.metric = metric;
+            this.unit = unit;
+            this.higherIsBetter = higherIsBetter;
+            this.n = n;
+            this.score = score;
+            this.standardDeviation = standardDeviation;
+        }
+
+        /**
+         * @return the key identifying the result across runs: benchmark, mode, parameters and metric.
+         */
+        public String getKey() {
+            StringBuilder b = new StringBuilder(benchmark).append(" [").append(mode);
+            for (Map.Entry<String, String> en : params.entrySet()) {
+                b.append(", ").append(en.getKey()).append('=').append(en.getValue());
+            }
+            b.append(']');
+            if (metric != null) {
+                b.append(':').append(metric);
+            }
+            return b.toString();
+        }
+
+        /**
+         * @return the fully qualified benchmark method name.
+         */
+        public String getBenchmark() {
+            return benchmark;
+        }
+
+        /**
+         * @return the score, i.e. the mean over all measurement iterations.
+         */
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * @return the unit of the score, e.g. {@code ops/us} or {@code B/op}.
+         */
+        public String getUnit() {
+            return unit;
+        }
+
+        /**
+         * @return true for throughput scores, false for times and allocations.
+         */
+        public boolean isHigherBetter() {
+            return higherIsBetter;
+        }
+
+        /**
+         * Get the half width of the confidence interval of the score, based on Student's t-distribution as done
+         * by JMH.
+         *
+         * @param confidence the confidence level, e.g. 0.999.
+         * @return the half width, 0 if less than two samples are available.
+         */
+        public double getError(double confidence) {
+            if (n <= 1 || Double.isNaN(standardDeviation)) {
+                return 0.0;
+            }
+            TDistribution distribution = new TDistribution(n - 1);
+            double t = distribution.inverseCumulativeProbability(1.0 - (1.0 - confidence) / 2);
+            return t * standardDeviation / Math.sqrt(n);
+        }
+    }
+
+    private BenchmarkBaseline(String version, String created, String jvm) {
+        this.version = version;
+        this.created = created;
+        this.jvm = jvm;
+    }
+
+    /**
+     * Creates a baseline from the results of a benchmark run.
+     *
+     * @param version the version of the implementation benchmarked, not null.
+     * @param results the results, not null.
+     * @return the baseline.
+     */
+    public static BenchmarkBaseline of(String version, Collection<RunResult> results) {
+        RunResult first = results.isEmpty() ? null : results.iterator().next();
+        String jvm = first == null ? null : first.getParams().getJdkVersion() + ", " + first.getParams().getVmVersion();
+        BenchmarkBaseline baseline = new BenchmarkBaseline(version, new Date().toString(), jvm);
+        for (RunResult result : results) {
+            Map<String, String> params = new TreeMap<>();
+            for (String key : result.getParams().getParamsKeys()) {
+                params.put(key, result.getParams().getParam(key));
+            }
+            Mode mode = result.getParams().getMode();
+            baseline.add(result.getParams().getBenchmark(), mode.shortLabel(), params, null,
+                    result.getPrimaryResult(), mode == Mode.Throughput);
+            for (Map.Entry<String, Result> en : result.getSecondaryResults().entrySet()) {
+                if (ALLOCATION_UNIT.equals(en.getValue().getScoreUnit())) {
+                    baseline.add(result.getParams().getBenchmark(), mode.shortLabel(), params, en.getKey(),
+                            en.getValue(), false);
+                }
+            }
+        }
+        return baseline;
+    }
+
+    private void add(String benchmark, String mode, Map<String, String> params, String metric, Result result,
+                     boolean higherIsBetter) {
+        Statistics statistics = result.getStatistics();
+        Entry entry = new Entry(benchmark, mode, params, metric, result.getScoreUnit(), higherIsBetter,
+                statistics.getN(), result.getScore(), statistics.getStandardDeviation());
+        entries.put(entry.getKey(), entry);
+    }
+
+    /**
+     * @return the version of the implementation benchmarked.
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the results stored, by key, see {@link Entry#getKey()}.
+     */
+    public Map<String, Entry> getEntries() {
+        return Collections.unmodifiableMap(entries);
+    }
+
+    /**
+     * Writes the baseline as JSON.
+     *
+     * @param file the target file, not null.
+     */
+    public void write(File file) {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IllegalStateException("Cannot create directory " + parent);
+        }
+        try (Writer w = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            w.write("{\n  \"formatVersion\": " + FORMAT_VERSION + ",\n");
+            w.write("  \"version\": " + quote(version) + ",\n");
+            w.write("  \"created\": " + quote(created) + ",\n");
+            w.write("  \"jvm\": " + quote(jvm) + ",\n");
+            w.write("  \"results\": [");
+            String separator = "\n";
+            for (Entry entry : entries.values()) {
+                StringBuilder params = new StringBuilder();
+                for (Map.Entry<String, String> en : entry.params.entrySet()) {
+                    params.append(params.length() == 0 ? "" : ", ").append(quote(en.getKey())).append(": ")
+                            .append(quote(en.getValue()));
+                }
+                w.write(separator + "    {\"benchmark\": " + quote(entry.benchmark) + ", \"mode\": "
+                        + quote(entry.mode) + ", \"params\": {" + params + "}, \"metric\": " + quote(entry.metric)
+                        + ", \"unit\": " + quote(entry.unit) + ", \"higherIsBetter\": " + entry.higherIsBetter
+                        + ", \"n\": " + entry.n + ", \"score\": " + number(entry.score)
+                        + ", \"standardDeviation\": " + number(entry.standardDeviation) + '}');
+                separator = ",\n";
+            }
+            w.write("\n  ]\n}\n");
+        } catch (IOException e) {
+            throw new IllegalStateException("IO Error", e);
+        }
+    }
+
+    /**
+     * Reads a baseline written by {@link #write(File)}.
+     *
+     * @param file the baseline file, not null.
+     * @return the baseline read.
+     * @throws IllegalArgumentException if the file is not a baseline of a supported format version.
+     */
+    @SuppressWarnings("unchecked")
+    public static BenchmarkBaseline read(File file) {
+        Object json;
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            StringBuilder b = new StringBuilder();
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) > 0) {
+                b.append(buffer, 0, read);
+            }
+            json = new JsonParser(b.toString()).parse();
+        } catch (IOException e) {
+            throw new IllegalStateException("IO Error", e);
+        }
+        if (!(json instanceof Map) || !(((Map<String, Object>) json).get("results") instanceof List)) {
+            throw new IllegalArgumentException("Not a benchmark baseline: " + file);
+        }
+        Map<String, Object> root = (Map<String, Object>) json;
+        Object formatVersion = root.get("formatVersion");
+        if (!(formatVersion instanceof Double) || ((Double) formatVersion).intValue() != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported baseline format version " + formatVersion + ": " + file);
+        }
+        BenchmarkBaseline baseline = new BenchmarkBaseline((String) root.get("version"), (String) root.get("created"),
+                (String) root.get("jvm"));
+        for (Object element : (List<Object>) root.get("results")) {
+            Map<String, Object> result = (Map<String, Object>) element;
+            Map<String, String> params = new TreeMap<>();
+            for (Map.Entry<String, Object> en : ((Map<String, Object>) result.get("params")).entrySet()) {
+                params.put(en.getKey(), (String) en.getValue());
+            }
+            Entry entry = new Entry((String) result.get("benchmark"), (String) result.get("mode"), params,
+                    (String) result.get("metric"), (String) result.get("unit"),
+                    Boolean.TRUE.equals(result.get("higherIsBetter")), ((Double) result.get("n")).longValue(),
+                    toDouble(result.get("score")), toDouble(result.get("standardDeviation")));
+            baseline.entries.put(entry.getKey(), entry);
+        }
+        return baseline;
+    }
+
+    /**
+     * Compares the given results with this baseline. A result is flagged as regression, if it is worse than the
+     * baseline by more than the threshold and the confidence intervals of both do not overlap, i.e. the regression
+     * is significant at the given confidence level.
+     *
+     * @param current          the results of the run to be compared, not null.
+     * @param defaultThreshold the relative threshold, e.g. 0.1 for 10%.
+     * @param thresholds       thresholds overriding the default threshold, by simple benchmark class name, e.g.
+     *                         {@code MonetaryAmountArithmeticBenchmark}, or class and method name, e.g.
+     *                         {@code MonetaryAmountArithmeticBenchmark.addIntegers}, not null.
+     * @param confidence       the confidence level, e.g. 0.999 as used by JMH.
+     * @param report           the writer the comparison is reported to, not null.
+     * @return the number of regressions.
+     */
+    public int compare(BenchmarkBaseline current, double defaultThreshold, Map<String, Double> thresholds,
+                       double confidence, PrintWriter report) {
+        report.println("Benchmark regressions against baseline " + version + " (" + created + ", " + jvm + ')');
+        report.println("Current run: " + current.version + " (" + current.created + ", " + current.jvm + ')');
+        report.println(String.format(Locale.ENGLISH, "Default threshold %.1f%%, confidence %.1f%%",
+                defaultThreshold * 100, confidence * 100));
+        report.println();
+        int regressions = 0;
+        List<String> missing = new ArrayList<>();
+        for (Entry base : entries.values()) {
+            Entry entry = current.entries.get(base.getKey());
+            if (entry == null) {
+                missing.add(base.getKey());
+                continue;
+            }
+            double threshold = getThreshold(base.benchmark, defaultThreshold, thresholds);
+            double baseError = base.getError(confidence);
+            double error = entry.getError(confidence);
+            double change = base.score == 0.0 ? 0.0 : (entry.score - base.score) / Math.abs(base.score);
+            double worsening = base.higherIsBetter ? -change : change;
+            boolean lower = entry.score + error < base.score - baseError;
+            boolean higher = entry.score - error > base.score + baseError;
+            String status;
+            if (worsening > threshold && (base.higherIsBetter ? lower : higher)) {
+                status = "REGRESSION";
+                regressions++;
+            } else if (-worsening > threshold && (base.higherIsBetter ? higher : lower)) {
+                status = "IMPROVED";
+            } else {
+                status = "OK";
+            }
+            report.println(String.format(Locale.ENGLISH,
+                    "%-10s %+8.1f%%  %12.5g +/- %-10.3g -> %12.5g +/- %-10.3g %-8s (threshold %.1f%%)  %s", status,
+                    change * 100, base.score, baseError, entry.score, error, base.unit, threshold * 100,
+                    base.getKey()));
+        }
+        for (String key : current.entries.keySet()) {
+            if (!entries.containsKey(key)) {
+                report.println("NEW        " + key);
+            }
+        }
+        for (String key : missing) {
+            report.println("MISSING    " + key);
+        }
+        report.println();
+        report.println(regressions + " regressions found.");
+        return regressions;
+    }
+
+    /**
+     * Get the threshold of the given benchmark: the threshold of the benchmark method, if set, else the threshold
+     * of the benchmark class, if set, else the default threshold.
+     *
+     * @param benchmark        the fully qualified benchmark method name.
+     * @param defaultThreshold the default threshold.
+     * @param thresholds       the thresholds by simple class name or class and method name, not null.
+     * @return the threshold to be applied.
+     */
+    static double getThreshold(String benchmark, double defaultThreshold, Map<String, Double> thresholds) {
+        String name = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1);
+        Double threshold = thresholds.get(name);
+        if (threshold == null) {
+            threshold = thresholds.get(name.substring(0, name.indexOf('.')));
+        }
+        return threshold != null ? threshold : defaultThreshold;
+    }
+
+    private static String number(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return "null";
+        }
+        return String.valueOf(value);
+    }
+
+    private static double toDouble(Object value) {
+        return value instanceof Double ? (Double) value : Double.NaN;
+    }
+
+    /**
+     * Minimal JSON parser for reading baselines: objects are returned as {@link Map}, arrays as {@link List},
+     * numbers as {@link Double}.
+     */
+    private static final class JsonParser {
+        private final String text;
+        private int pos;
+
+        private JsonParser(String text) {
+            this.text = text;
+        }
+
+        private Object parse() {
+            Object value = parseValue();
+            skipWhitespace();
+            if (pos < text.length()) {
+                throw error("Unexpected content");
+            }
+            return value;
+        }
+
+        private Object parseValue() {
+            skipWhitespace();
+            if (pos >= text.length()) {
+                throw error("Unexpected end");
+            }
+            char c = text.charAt(pos);
+            switch (c) {
+                case '{':
+                    return parseObject();
+                case '[':
+                    return parseArray();
+                case '"':
+                    return parseString();
+                case 't':
+                    expect("true");
+                    return Boolean.TRUE;
+                case 'f':
+                    expect("false");
+                    return Boolean.FALSE;
+                case 'n':
+                    expect("null");
+                    return null;
+                default:
+                    return parseNumber();
+            }
+        }
+
+        private Map<String, Object> parseObject() {
+            Map<String, Object> object = new LinkedHashMap<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return object;
+            }
+            while (true) {
+                skipWhitespace();
+                String key = parseString();
+                skipWhitespace();
+                expect(":");
+                object.put(key, parseValue());
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect("}");
+                    return object;
+                }
+            }
+        }
+
+        private List<Object> parseArray() {
+            List<Object> array = new ArrayList<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == ']') {
+                pos++;
+                return array;
+            }
+            while (true) {
+                array.add(parseValue());
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect("]");
+                    return array;
+                }
+            }
+        }
+
+        private String parseString() {
+            expect("\"");
+            StringBuilder b = new StringBuilder();
+            while (pos < text.length()) {
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return b.toString();
+                }
+                if (c != '\\') {
+                    b.append(c);
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case 'n':
+                        b.append('\n');
+                        break;
+                    case 'r':
+                        b.append('\r');
+                        break;
+                    case 't':
+                        b.append('\t');
+                        break;
+                    case 'b':
+                        b.append('\b');
+                        break;
+                    case 'f':
+                        b.append('\f');
+                        break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw error("Invalid unicode escape");
+                        }
+                        b.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default:
+                        b.append(escaped);
+                }
+            }
+            throw error("Unterminated string");
+        }
+
+        private Double parseNumber() {
+            int start = pos;
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+                pos++;
+            }
+            try {
+                return Double.valueOf(text.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("Invalid number");
+            }
+        }
+
+        private char peek() {
+            return pos < text.length() ? text.charAt(pos) : '\0';
+        }
+
+        private void expect(String token) {
+            if (!text.startsWith(token, pos)) {
+                throw error("Expected " + token);
+            }
+            pos += token.length();
+        }
+
+        private void skipWhitespace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + pos + " of baseline JSON.");
+        }
+    }
+}
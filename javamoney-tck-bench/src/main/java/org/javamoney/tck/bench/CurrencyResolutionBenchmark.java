@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck.bench;
+
+import org.javamoney.tck.tests.internal.TestCurrencyProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.money.CurrencyQuery;
+import javax.money.CurrencyQueryBuilder;
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmarks resolving currencies by code, locale and query, including the regex queries checked by
+ * {@link org.javamoney.tck.tests.spi.CurrencyProviderSPITest#testSeachByRegex()}. Each benchmark runs with the TCK's
+ * {@link TestCurrencyProvider} registered and without it, see the parameter {@code testCurrencyProvider}. The
+ * baselines scan a snapshot of all currencies with a precompiled and a newly compiled pattern: a regex query
+ * close to the precompiled baseline uses cached patterns, a regex query close to or beyond the other baseline
+ * recompiles the pattern or scans all providers on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CurrencyResolutionBenchmark {
+
+    private static final String DOLLAR_REGEX = "\\p{Upper}{2}D";
+
+    /**
+     * If false, the TCK's {@link TestCurrencyProvider} is hidden from the implementation. This requires the
+     * benchmark to be run in a forked JVM.
+     */
+    @Param({"true", "false"})
+    public boolean testCurrencyProvider;
+
+    private Locale locale;
+    private CurrencyQuery codeQuery;
+    private CurrencyQuery countryQuery;
+    private CurrencyQuery regexQuery;
+    private Pattern dollarPattern;
+    private List<String> allCodes;
+
+    @Setup
+    public void setup() {
+        if (!testCurrencyProvider) {
+            ExcludingServiceProvider.install(TestCurrencyProvider.class);
+        }
+        String providerName = TestCurrencyProvider.class.getSimpleName();
+        if (Monetary.getCurrencyProviderNames().contains(providerName) != testCurrencyProvider) {
+            throw new IllegalStateException("Expected " + providerName + (testCurrencyProvider ? "" : " not")
+                    + " to be registered, run the benchmark forked.");
+        }
+        locale = new Locale("de", "CH");
+        codeQuery = CurrencyQueryBuilder.of().setCurrencyCodes("CHF", "EUR", "USD").build();
+        countryQuery = CurrencyQueryBuilder.of().setCountries(locale).build();
+        regexQuery = CurrencyQueryBuilder.of().setCurrencyCodes(DOLLAR_REGEX).build();
+        dollarPattern = Pattern.compile(DOLLAR_REGEX);
+        allCodes = new ArrayList<>();
+        for (CurrencyUnit unit : Monetary.getCurrencies()) {
+            allCodes.add(unit.getCurrencyCode());
+        }
+        if (Monetary.getCurrencies(regexQuery).isEmpty()) {
+            throw new IllegalStateException("No currencies returned for regex query " + DOLLAR_REGEX);
+        }
+    }
+
+    @Benchmark
+    public CurrencyUnit getCurrencyByCode() {
+        return Monetary.getCurrency("CHF");
+    }
+
+    @Benchmark
+    public CurrencyUnit getCurrencyByLocale() {
+        return Monetary.getCurrency(locale);
+    }
+
+    @Benchmark
+    public Collection<CurrencyUnit> getCurrenciesByCodes() {
+        return Monetary.getCurrencies(codeQuery);
+    }
+
+    @Benchmark
+    public Collection<CurrencyUnit> getCurrenciesByCountry() {
+        return Monetary.getCurrencies(countryQuery);
+    }
+
+    @Benchmark
+    public Collection<CurrencyUnit> getCurrenciesByRegex() {
+        return Monetary.getCurrencies(regexQuery);
+    }
+
+    @Benchmark
+    public Collection<CurrencyUnit> getCurrenciesByRegexNewQuery() {
+        return Monetary.getCurrencies(CurrencyQueryBuilder.of().setCurrencyCodes(DOLLAR_REGEX).build());
+    }
+
+    @Benchmark
+    public void regexScanPrecompiledBaseline(Blackhole blackhole) {
+        for (String code : allCodes) {
+            blackhole.consume(dollarPattern.matcher(code).matches());
+        }
+    }
+
+    @Benchmark
+    public void regexScanCompilingBaseline(Blackhole blackhole) {
+        Pattern pattern = Pattern.compile(DOLLAR_REGEX);
+        for (String code : allCodes) {
+            blackhole.consume(pattern.matcher(code).matches());
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck.bench;
+
+import javax.money.spi.Bootstrap;
+import javax.money.spi.ServiceProvider;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * {@link ServiceProvider} hiding some of the services registered, so benchmarks can be run with and without the
+ * providers the TCK registers, e.g. {@code TestCurrencyProvider}. All other services are loaded by the service
+ * provider of the implementation. It must be installed before the JSR 354 API is used, i.e. in the benchmark setup
+ * of a forked JVM.
+ */
+final class ExcludingServiceProvider implements ServiceProvider {
+
+    private final ServiceProvider delegate;
+    private final Set<String> excludedClassNames;
+
+    private ExcludingServiceProvider(ServiceProvider delegate, Set<String> excludedClassNames) {
+        this.delegate = delegate;
+        this.excludedClassNames = excludedClassNames;
+    }
+
+    /**
+     * Installs a service provider hiding the given service classes using {@link Bootstrap#init(ServiceProvider)}.
+     *
+     * @param excludedClasses the service classes to be hidden.
+     */
+    static void install(Class<?>... excludedClasses) {
+        Set<String> names = new HashSet<>();
+        for (Class<?> type : excludedClasses) {
+            names.add(type.getName());
+        }
+        Bootstrap.init(new ExcludingServiceProvider(loadDelegate(), names));
+    }
+
+    /**
+     * Loads the service provider of the implementation with the highest priority, or a provider using the
+     * {@link ServiceLoader} directly, if none is registered.
+     */
+    private static ServiceProvider loadDelegate() {
+        ServiceProvider best = null;
+        for (ServiceProvider provider : ServiceLoader.load(ServiceProvider.class)) {
+            if (best == null || provider.getPriority() > best.getPriority()) {
+                best = provider;
+            }
+        }
+        if (best != null) {
+            return best;
+        }
+        return new ServiceProvider() {
+            @Override
+            public int getPriority() {
+                return 0;
+            }
+
+            @Override
+            public <T> List<T> getServices(Class<T> serviceType) {
+                List<T> services = new ArrayList<>();
+                for (T service : ServiceLoader.load(serviceType)) {
+                    services.add(service);
+                }
+                return services;
+            }
+        };
+    }
+
+    @Override
+    public int getPriority() {
+        return delegate.getPriority();
+    }
+
+    @Override
+    public <T> List<T> getServices(Class<T> serviceType) {
+        List<T> services = new ArrayList<>();
+        for (T service : delegate.getServices(serviceType)) {
+            if (!excludedClassNames.contains(service.getClass().getName())) {
+                services.add(service);
+            }
+        }
+        return services;
+    }
+
+    @Override
+    public String toString() {
+        return "ExcludingServiceProvider{delegate=" + delegate + ", excluded=" + excludedClassNames + '}';
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryAmountFactory;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the arithmetic operations of the amount classes configured, using the same operands as the
+ * arithmetic tests in {@link org.javamoney.tck.tests.ModellingMonetaryAmountsTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MonetaryAmountArithmeticBenchmark {
+
+    private static final String DEFAULT_CURRENCY = "CHF";
+
+    /**
+     * The amount class benchmarked, set by {@link BenchRunner}.
+     */
+    @Param({})
+    public String amountClass;
+
+    private MonetaryAmount ten;
+    private MonetaryAmount twenty;
+    private MonetaryAmount minusTen;
+    private MonetaryAmount fraction;
+    private MonetaryAmount otherFraction;
+    private MonetaryAmount minusFraction;
+    private MonetaryAmount large;
+    private MonetaryAmount largeFraction;
+    private BigDecimal decimalFactor;
+    private BigDecimal decimalDivisor;
+
+    @Setup
+    public void setup() throws ClassNotFoundException {
+        MonetaryAmountFactory<?> factory = Monetary.getAmountFactory(
+                Class.forName(amountClass).asSubclass(MonetaryAmount.class));
+        factory.setCurrency(DEFAULT_CURRENCY);
+        ten = factory.setNumber(10).create();
+        twenty = factory.setNumber(20).create();
+        minusTen = factory.setNumber(-10).create();
+        fraction = factory.setNumber(1.5).create();
+        otherFraction = factory.setNumber(2.85).create();
+        minusFraction = factory.setNumber(-2.85).create();
+        large = factory.setNumber(34242344).create();
+        largeFraction = factory.setNumber(23123213.435).create();
+        decimalFactor = new BigDecimal("1.5");
+        decimalDivisor = new BigDecimal("2.5");
+    }
+
+    @Benchmark
+    public MonetaryAmount addIntegers() {
+        return ten.add(twenty);
+    }
+
+    @Benchmark
+    public MonetaryAmount addFractions() {
+        return fraction.add(otherFraction);
+    }
+
+    @Benchmark
+    public MonetaryAmount addMixed() {
+        return fraction.add(minusFraction);
+    }
+
+    @Benchmark
+    public MonetaryAmount subtractIntegers() {
+        return ten.subtract(twenty);
+    }
+
+    @Benchmark
+    public MonetaryAmount subtractFractions() {
+        return fraction.subtract(otherFraction);
+    }
+
+    @Benchmark
+    public MonetaryAmount multiplyLong() {
+        return ten.multiply(2L);
+    }
+
+    @Benchmark
+    public MonetaryAmount multiplyDouble() {
+        return ten.multiply(1.5d);
+    }
+
+    @Benchmark
+    public MonetaryAmount multiplyNumber() {
+        return ten.multiply(decimalFactor);
+    }
+
+    @Benchmark
+    public MonetaryAmount divideLong() {
+        return ten.divide(10L);
+    }
+
+    @Benchmark
+    public MonetaryAmount divideDouble() {
+        return ten.divide(2.5d);
+    }
+
+    @Benchmark
+    public MonetaryAmount divideNumber() {
+        return ten.divide(decimalDivisor);
+    }
+
+    @Benchmark
+    public MonetaryAmount remainderLong() {
+        return large.remainder(3L);
+    }
+
+    @Benchmark
+    public MonetaryAmount remainderDouble() {
+        return largeFraction.remainder(10.50);
+    }
+
+    @Benchmark
+    public MonetaryAmount[] divideAndRemainder() {
+        return largeFraction.divideAndRemainder(10.50);
+    }
+
+    @Benchmark
+    public MonetaryAmount negate() {
+        return ten.negate();
+    }
+
+    @Benchmark
+    public MonetaryAmount abs() {
+        return minusTen.abs();
+    }
+
+    @Benchmark
+    public int compareTo() {
+        return fraction.compareTo(otherFraction);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryAmountFactory;
+import javax.money.NumberValue;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks extracting numeric values from the amounts of the amount classes configured, covering the methods of
+ * {@link NumberValue} tested by {@link org.javamoney.tck.tests.ExternalizingNumericValueTest}. The conversions to a
+ * target type are benchmarked for each {@link Number} type, see {@link TargetType}. The amounts' numbers are
+ * extracted on each call, as done by typical callers, e.g. {@code getNumber().numberValue(BigDecimal.class)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class NumberValueBenchmark {
+
+    private static final String DEFAULT_CURRENCY = "CHF";
+
+    /**
+     * The amount class benchmarked, set by {@link BenchRunner}.
+     */
+    @Param({})
+    public String amountClass;
+
+    /**
+     * Amount with an integral number, which can be converted exactly to all target types.
+     */
+    private MonetaryAmount integral;
+
+    /**
+     * Amount with a fraction, which is exactly representable as {@code double}.
+     */
+    private MonetaryAmount fraction;
+
+    /**
+     * The target type of the conversions, only used by the benchmarks taking it as argument, so the other
+     * benchmarks are not repeated for each type.
+     */
+    @State(Scope.Benchmark)
+    public static class TargetType {
+
+        /**
+         * The simple name of the {@link Number} type.
+         */
+        @Param({"Byte", "Short", "Integer", "Long", "Float", "Double", "BigInteger", "BigDecimal"})
+        public String numberType;
+
+        private Class<? extends Number> type;
+
+        @Setup
+        public void setup() throws ClassNotFoundException {
+            String packageName = numberType.startsWith("Big") ? "java.math." : "java.lang.";
+            type = Class.forName(packageName + numberType).asSubclass(Number.class);
+        }
+    }
+
+    @Setup
+    public void setup() throws ClassNotFoundException {
+        MonetaryAmountFactory<?> factory = Monetary.getAmountFactory(
+                Class.forName(amountClass).asSubclass(MonetaryAmount.class));
+        integral = factory.setCurrency(DEFAULT_CURRENCY).setNumber(100).create();
+        fraction = factory.setCurrency(DEFAULT_CURRENCY).setNumber(new BigDecimal("100.25")).create();
+    }
+
+    @Benchmark
+    public Number numberValue(TargetType target) {
+        return fraction.getNumber().numberValue(target.type);
+    }
+
+    @Benchmark
+    public Number numberValueExact(TargetType target) {
+        return integral.getNumber().numberValueExact(target.type);
+    }
+
+    @Benchmark
+    public NumberValue getNumber() {
+        return fraction.getNumber();
+    }
+
+    @Benchmark
+    public int intValueExact() {
+        return integral.getNumber().intValueExact();
+    }
+
+    @Benchmark
+    public long longValueExact() {
+        return integral.getNumber().longValueExact();
+    }
+
+    @Benchmark
+    public double doubleValueExact() {
+        return fraction.getNumber().doubleValueExact();
+    }
+
+    @Benchmark
+    public double doubleValue() {
+        return fraction.getNumber().doubleValue();
+    }
+
+    @Benchmark
+    public long getAmountFractionNumerator() {
+        return fraction.getNumber().getAmountFractionNumerator();
+    }
+
+    @Benchmark
+    public long getAmountFractionDenominator() {
+        return fraction.getNumber().getAmountFractionDenominator();
+    }
+
+    @Benchmark
+    public int getPrecision() {
+        return fraction.getNumber().getPrecision();
+    }
+
+    @Benchmark
+    public int getScale() {
+        return fraction.getNumber().getScale();
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.convert.ExchangeRate;
+import javax.money.convert.ExchangeRateProvider;
+import javax.money.convert.MonetaryConversions;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the overhead of provider chains, using the TCK's rate providers as in
+ * {@link org.javamoney.tck.tests.conversion.ProviderChainsTest}. Only {@code TestRateProvider3} answers the USD/INR
+ * rate benchmarked, the parameter {@code misses} defines the number of providers not answering, which are placed
+ * before ({@code hitPosition=last}) or after ({@code hitPosition=first}) it. The latency per additional miss, i.e.
+ * the per-hop overhead, is evaluated by {@link #printPerHopOverhead(Collection, PrintStream)} after the benchmarks
+ * have been run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ProviderChainBenchmark {
+
+    /**
+     * The providers not answering USD/INR nor JPY/INR rates.
+     */
+    private static final String[] MISSING_PROVIDERS = {"TestRateProvider1", "TestRateProvider2", "TestRateProvider"};
+
+    /**
+     * The provider answering USD/INR rates.
+     */
+    private static final String HIT_PROVIDER = "TestRateProvider3";
+
+    /**
+     * The number of providers in the chain not answering.
+     */
+    @Param({"0", "1", "2", "3"})
+    public int misses;
+
+    /**
+     * The position of the answering provider in the chain, {@code first} or {@code last}.
+     */
+    @Param({"last", "first"})
+    public String hitPosition;
+
+    private String[] chain;
+    private ExchangeRateProvider provider;
+    private CurrencyUnit base;
+    private CurrencyUnit term;
+    private CurrencyUnit unavailableBase;
+    private MonetaryAmount amount;
+
+    @Setup
+    public void setup() {
+        if (misses < 0 || misses > MISSING_PROVIDERS.length) {
+            throw new IllegalArgumentException("Invalid misses, expected 0.." + MISSING_PROVIDERS.length + ": "
+                    + misses);
+        }
+        List<String> names = new ArrayList<>(Arrays.asList(MISSING_PROVIDERS).subList(0, misses));
+        if ("first".equals(hitPosition)) {
+            names.add(0, HIT_PROVIDER);
+        } else if ("last".equals(hitPosition)) {
+            names.add(HIT_PROVIDER);
+        } else {
+            throw new IllegalArgumentException("Invalid hitPosition, expected first or last: " + hitPosition);
+        }
+        chain = names.toArray(new String[names.size()]);
+        provider = MonetaryConversions.getExchangeRateProvider(chain);
+        base = Monetary.getCurrency("USD");
+        term = Monetary.getCurrency("INR");
+        unavailableBase = Monetary.getCurrency("JPY");
+        amount = Monetary.getDefaultAmountFactory().setCurrency(base).setNumber(10).create();
+        ExchangeRate rate = provider.getExchangeRate(base, term);
+        if (rate == null || !HIT_PROVIDER.equals(rate.getContext().getProviderName())) {
+            throw new IllegalStateException("Expected USD/INR rate from " + HIT_PROVIDER + " in chain "
+                    + Arrays.toString(chain) + ", but was: " + rate);
+        }
+    }
+
+    @Benchmark
+    public ExchangeRateProvider getExchangeRateProvider() {
+        return MonetaryConversions.getExchangeRateProvider(chain);
+    }
+
+    @Benchmark
+    public ExchangeRate getExchangeRate() {
+        return provider.getExchangeRate(base, term);
+    }
+
+    @Benchmark
+    public MonetaryAmount convert() {
+        return provider.getCurrencyConversion(term).apply(amount);
+    }
+
+    @Benchmark
+    public boolean isAvailable() {
+        return provider.isAvailable(base, term);
+    }
+
+    @Benchmark
+    public boolean isAvailableMiss() {
+        return provider.isAvailable(unavailableBase, term);
+    }
+
+    /**
+     * Prints the per-hop overhead for each benchmark of this class contained in the given results, evaluated as
+     * the slope of a least squares fit of the average time over the number of misses.
+     *
+     * @param results the results of a benchmark run, not null.
+     * @param out     the stream to print to.
+     */
+    public static void printPerHopOverhead(Collection<RunResult> results, PrintStream out) {
+        Map<String, List<double[]>> series = new TreeMap<>();
+        String unit = null;
+        for (RunResult result : results) {
+            if (!result.getParams().getBenchmark().startsWith(ProviderChainBenchmark.class.getName() + '.')
+                    || result.getParams().getMode() != Mode.AverageTime) {
+                continue;
+            }
+            String name = result.getParams().getBenchmark().substring(ProviderChainBenchmark.class.getName().length()
+                    + 1) + " (hit " + result.getParams().getParam("hitPosition") + ')';
+            List<double[]> points = series.get(name);
+            if (points == null) {
+                points = new ArrayList<>();
+                series.put(name, points);
+            }
+            points.add(new double[]{Integer.parseInt(result.getParams().getParam("misses")),
+                    result.getPrimaryResult().getScore()});
+            unit = result.getPrimaryResult().getScoreUnit();
+        }
+        if (series.isEmpty()) {
+            return;
+        }
+        out.println();
+        out.println("Provider chain overhead per hop (slope of average time over misses):");
+        for (Map.Entry<String, List<double[]>> en : series.entrySet()) {
+            if (en.getValue().size() < 2) {
+                continue;
+            }
+            out.println(String.format(Locale.ENGLISH, "%12.4f %s  %s", slope(en.getValue()), unit, en.getKey()));
+        }
+    }
+
+    private static double slope(List<double[]> points) {
+        double sumX = 0.0;
+        double sumY = 0.0;
+        for (double[] point : points) {
+            sumX += point[0];
+            sumY += point[1];
+        }
+        double meanX = sumX / points.size();
+        double meanY = sumY / points.size();
+        double covariance = 0.0;
+        double variance = 0.0;
+        for (double[] point : points) {
+            covariance += (point[0] - meanX) * (point[1] - meanY);
+            variance += (point[0] - meanX) * (point[0] - meanX);
+        }
+        return variance > 0 ? covariance / variance : 0.0;
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryAmountFactory;
+import javax.money.MonetaryRounding;
+import javax.money.RoundingQuery;
+import javax.money.RoundingQueryBuilder;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks applying roundings to amounts of the amount classes configured: the default rounding, currency and
+ * cash roundings of the implementation and the roundings of the TCK's {@code TestRoundingProvider}, as tested by
+ * {@link org.javamoney.tck.tests.AccessingCurrenciesAmountsRoundingsTest}, see the parameter {@code rounding}. The
+ * rounding is resolved once by {@code apply}, and on every call by {@code getRoundingAndApply}. The lookup alone is
+ * measured by {@code getRounding}, which does not depend on the amount class, see {@link AmountType}. The roundings of
+ * {@code TestRoundingProvider} are queried from this provider only. Run with {@code -prof gc} to measure the bytes
+ * allocated per apply.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RoundingBenchmark {
+
+    private static final BigDecimal NUMBER = new BigDecimal("1234.56789");
+
+    private static final String TEST_ROUNDING_PROVIDER = "TestRoundingProvider";
+
+    /**
+     * The rounding applied:
+     * <ul>
+     * <li>{@code default}: {@link Monetary#getDefaultRounding()} applied to a CHF amount.</li>
+     * <li>{@code currency}: {@link Monetary#getRounding(javax.money.CurrencyUnit)} for CHF.</li>
+     * <li>{@code cash}: the CHF cash rounding, queried with {@code cashRounding=true}.</li>
+     * <li>{@code scale}: a query with scale 2 and {@link RoundingMode#HALF_EVEN}.</li>
+     * <li>{@code NOSCALE}: the named rounding of {@code TestRoundingProvider}.</li>
+     * <li>{@code XAU}: the XAU rounding of {@code TestRoundingProvider}, queried with a timestamp.</li>
+     * <li>{@code XAUCash}: the XAU cash rounding of {@code TestRoundingProvider}.</li>
+     * <li>{@code XAUCashHistoric}: the XAU cash rounding of {@code TestRoundingProvider} for 1970.</li>
+     * </ul>
+     */
+    @Param({"default", "currency", "cash", "scale", "NOSCALE", "XAU", "XAUCash", "XAUCashHistoric"})
+    public String rounding;
+
+    private CurrencyUnit currency;
+    private RoundingQuery query;
+    private MonetaryRounding monetaryRounding;
+
+    /**
+     * The scale of the roundings of {@code TestRoundingProvider}, -1 for the roundings of the implementation, which
+     * are unchecked.
+     */
+    private int expectedScale = -1;
+
+    /**
+     * The amount class benchmarked, only used by the benchmarks taking it as argument, so the rounding lookups not
+     * depending on the amount class are not repeated for each class.
+     */
+    @State(Scope.Benchmark)
+    public static class AmountType {
+
+        /**
+         * The amount class benchmarked, set by {@link BenchRunner}.
+         */
+        @Param({})
+        public String amountClass;
+
+        private MonetaryAmount amount;
+
+        @Setup
+        public void setup(RoundingBenchmark benchmark) throws ClassNotFoundException {
+            MonetaryAmountFactory<?> factory = Monetary.getAmountFactory(
+                    Class.forName(amountClass).asSubclass(MonetaryAmount.class));
+            amount = factory.setCurrency(benchmark.currency).setNumber(NUMBER).create();
+            MonetaryAmount rounded = amount.with(benchmark.monetaryRounding);
+            if (benchmark.expectedScale >= 0 && rounded.getNumber().getScale() != benchmark.expectedScale) {
+                throw new IllegalStateException("Expected " + benchmark.rounding + " rounding of "
+                        + TEST_ROUNDING_PROVIDER + " with scale " + benchmark.expectedScale + ", but " + amount
+                        + " was rounded to " + rounded);
+            }
+        }
+    }
+
+    @Setup
+    public void setup() {
+        currency = Monetary.getCurrency(rounding.startsWith("XAU") ? "XAU" : "CHF");
+        RoundingQueryBuilder builder = RoundingQueryBuilder.of();
+        if (rounding.equals("NOSCALE") || rounding.startsWith("XAU")) {
+            // the implementation's providers may not support XAU and fail on every lookup
+            builder.setProviderName(TEST_ROUNDING_PROVIDER);
+        }
+        switch (rounding) {
+            case "default":
+                break;
+            case "currency":
+                builder.setCurrency(currency);
+                break;
+            case "cash":
+                builder.setCurrency(currency).set("cashRounding", true);
+                break;
+            case "scale":
+                builder.setScale(2).set(RoundingMode.HALF_EVEN);
+                break;
+            case "NOSCALE":
+                builder.setRoundingName("NOSCALE");
+                expectedScale = 0;
+                break;
+            case "XAU":
+                builder.setCurrency(currency).set(Calendar.class, GregorianCalendar.getInstance());
+                expectedScale = 2;
+                break;
+            case "XAUCash":
+                builder.setCurrency(currency).set("cashRounding", true);
+                expectedScale = 1;
+                break;
+            case "XAUCashHistoric":
+                Calendar historic = GregorianCalendar.getInstance();
+                historic.set(1970, Calendar.JUNE, 1);
+                builder.setCurrency(currency).set("cashRounding", true).set(Calendar.class, historic);
+                expectedScale = 2;
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid rounding: " + rounding);
+        }
+        query = "default".equals(rounding) ? null : builder.build();
+        monetaryRounding = getRounding();
+    }
+
+    @Benchmark
+    public MonetaryRounding getRounding() {
+        if (query == null) {
+            return Monetary.getDefaultRounding();
+        }
+        return Monetary.getRounding(query);
+    }
+
+    @Benchmark
+    public MonetaryAmount apply(AmountType amount) {
+        return amount.amount.with(monetaryRounding);
+    }
+
+    @Benchmark
+    public MonetaryAmount getRoundingAndApply(AmountType amount) {
+        return amount.amount.with(getRounding());
+    }
+}
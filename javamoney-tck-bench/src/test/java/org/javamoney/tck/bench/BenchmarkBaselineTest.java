@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck.bench;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+/**
+ * Test class for storing benchmark baselines and comparing runs against them, see {@link BenchmarkBaseline} and
+ * {@link BenchRunner}.
+ */
+public class BenchmarkBaselineTest {
+
+    private static final String ADD_INTEGERS = "org.javamoney.tck.bench.MonetaryAmountArithmeticBenchmark.addIntegers";
+    private static final String ADD_FRACTIONS =
+            "org.javamoney.tck.bench.MonetaryAmountArithmeticBenchmark.addFractions";
+    private static final String CREATE = "org.javamoney.tck.bench.AmountFactoryBenchmark.create";
+    private static final double CONFIDENCE = 0.999;
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        BenchmarkBaseline baseline = baseline("1.4.2",
+                result(ADD_INTEGERS, "thrpt", null, "ops/us", true, 10, 100.0, 1.5),
+                result(ADD_INTEGERS, "thrpt", "gc.alloc.rate.norm", "B/op", false, 10, 48.0, 0.0),
+                result(CREATE, "avgt", null, "us/op", false, 1, 0.25, Double.NaN));
+        File file = File.createTempFile("baseline", ".json");
+        file.deleteOnExit();
+        baseline.write(file);
+        BenchmarkBaseline read = BenchmarkBaseline.read(file);
+
+        assertEquals(read.getVersion(), "1.4.2");
+        assertEquals(read.getEntries().keySet(), baseline.getEntries().keySet());
+        for (BenchmarkBaseline.Entry entry : baseline.getEntries().values()) {
+            BenchmarkBaseline.Entry readEntry = read.getEntries().get(entry.getKey());
+            assertEquals(readEntry.getBenchmark(), entry.getBenchmark());
+            assertEquals(readEntry.getUnit(), entry.getUnit());
+            assertEquals(readEntry.isHigherBetter(), entry.isHigherBetter());
+            assertEquals(readEntry.getScore(), entry.getScore());
+            assertEquals(readEntry.getError(CONFIDENCE), entry.getError(CONFIDENCE));
+        }
+        BenchmarkBaseline.Entry allocations = read.getEntries().get(
+                ADD_INTEGERS + " [thrpt, amountClass=org.javamoney.moneta.Money]:gc.alloc.rate.norm");
+        assertEquals(allocations.getScore(), 48.0);
+        assertEquals(allocations.getUnit(), "B/op");
+        assertFalse(allocations.isHigherBetter());
+        assertEquals(read.getEntries().get(CREATE + " [avgt, amountClass=org.javamoney.moneta.Money]")
+                .getError(CONFIDENCE), 0.0);
+    }
+
+    @Test
+    public void testWriteEscapesStrings() throws IOException {
+        BenchmarkBaseline baseline = baseline("1.4 \"beta\"\\\n", result(ADD_INTEGERS, "thrpt", null, "ops/us",
+                true, 10, 100.0, 1.5));
+        File file = File.createTempFile("baseline", ".json");
+        file.deleteOnExit();
+        baseline.write(file);
+        assertEquals(BenchmarkBaseline.read(file).getVersion(), "1.4 \"beta\"\\\n");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testReadUnsupportedFormatVersion() throws IOException {
+        write("{\"formatVersion\": 99, \"version\": \"1.0\", \"results\": []}");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testReadNoBaseline() throws IOException {
+        write("[1, 2, 3]");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testReadInvalidJson() throws IOException {
+        write("{\"formatVersion\": 1, \"results\": [");
+    }
+
+    @Test
+    public void testErrorUsesStudentT() throws IOException {
+        BenchmarkBaseline baseline = baseline("1.0", result(ADD_INTEGERS, "thrpt", null, "ops/us", true, 10,
+                100.0, 1.0));
+        // t(0.9995, 9 degrees of freedom) = 4.7809
+        assertEquals(baseline.getEntries().values().iterator().next().getError(CONFIDENCE),
+                4.7809 / Math.sqrt(10), 1.0e-4);
+    }
+
+    @Test
+    public void testThresholdOfMethod() {
+        Map<String, Double> thresholds = new HashMap<>();
+        thresholds.put("MonetaryAmountArithmeticBenchmark.addIntegers", 0.05);
+        thresholds.put("MonetaryAmountArithmeticBenchmark", 0.3);
+        assertEquals(BenchmarkBaseline.getThreshold(ADD_INTEGERS, 0.1, thresholds), 0.05);
+    }
+
+    @Test
+    public void testThresholdOfClass() {
+        Map<String, Double> thresholds = new HashMap<>();
+        thresholds.put("MonetaryAmountArithmeticBenchmark.addIntegers", 0.05);
+        thresholds.put("MonetaryAmountArithmeticBenchmark", 0.3);
+        assertEquals(BenchmarkBaseline.getThreshold(ADD_FRACTIONS, 0.1, thresholds), 0.3);
+    }
+
+    @Test
+    public void testDefaultThreshold() {
+        Map<String, Double> thresholds = new HashMap<>();
+        thresholds.put("MonetaryAmountArithmeticBenchmark.addIntegers", 0.05);
+        thresholds.put("MonetaryAmountArithmeticBenchmark", 0.3);
+        assertEquals(BenchmarkBaseline.getThreshold(CREATE, 0.1, thresholds), 0.1);
+        assertEquals(BenchmarkBaseline.getThreshold(CREATE, 0.1, Collections.<String, Double>emptyMap()), 0.1);
+    }
+
+    @Test
+    public void testThroughputRegression() throws IOException {
+        assertStatus("REGRESSION", true, 100.0, 1.0, 80.0, 1.0);
+    }
+
+    @Test
+    public void testThroughputImprovement() throws IOException {
+        assertStatus("IMPROVED", true, 100.0, 1.0, 120.0, 1.0);
+    }
+
+    @Test
+    public void testTimeRegression() throws IOException {
+        assertStatus("REGRESSION", false, 100.0, 1.0, 120.0, 1.0);
+    }
+
+    @Test
+    public void testTimeImprovement() throws IOException {
+        assertStatus("IMPROVED", false, 100.0, 1.0, 80.0, 1.0);
+    }
+
+    @Test
+    public void testOverlappingIntervalsAreOk() throws IOException {
+        // error of 20 +/- 30 overlaps the baseline's interval, so the change is not significant
+        assertStatus("OK", true, 100.0, 1.0, 80.0, 20.0);
+        assertStatus("OK", true, 100.0, 20.0, 120.0, 1.0);
+        assertStatus("OK", false, 100.0, 20.0, 120.0, 20.0);
+    }
+
+    @Test
+    public void testChangeBelowThresholdIsOk() throws IOException {
+        // significant, as the intervals do not overlap, but below the 10% threshold
+        assertStatus("OK", true, 100.0, 0.1, 95.0, 0.1);
+        assertStatus("OK", false, 100.0, 0.1, 105.0, 0.1);
+    }
+
+    @Test
+    public void testNewAndMissingResults() throws IOException {
+        BenchmarkBaseline baseline = baseline("1.0", result(ADD_INTEGERS, "thrpt", null, "ops/us", true, 10,
+                100.0, 1.0));
+        BenchmarkBaseline current = baseline("1.1", result(CREATE, "thrpt", null, "ops/us", true, 10, 100.0, 1.0));
+        StringWriter report = new StringWriter();
+        assertEquals(baseline.compare(current, 0.1, Collections.<String, Double>emptyMap(), CONFIDENCE,
+                new PrintWriter(report, true)), 0);
+        assertTrue(report.toString().contains("NEW        " + CREATE + " ["), report.toString());
+        assertTrue(report.toString().contains("MISSING    " + ADD_INTEGERS + " ["), report.toString());
+    }
+
+    @Test
+    public void testBenchRunnerThresholdProperties() throws IOException {
+        BenchmarkBaseline baseline = baseline("1.0",
+                result(ADD_INTEGERS, "thrpt", null, "ops/us", true, 10, 100.0, 1.0),
+                result(ADD_FRACTIONS, "thrpt", null, "ops/us", true, 10, 100.0, 1.0),
+                result(CREATE, "thrpt", null, "ops/us", true, 10, 100.0, 1.0));
+        BenchmarkBaseline current = baseline("1.1",
+                result(ADD_INTEGERS, "thrpt", null, "ops/us", true, 10, 80.0, 1.0),
+                result(ADD_FRACTIONS, "thrpt", null, "ops/us", true, 10, 80.0, 1.0),
+                result(CREATE, "thrpt", null, "ops/us", true, 10, 80.0, 1.0));
+        File reportFile = File.createTempFile("regressions", ".txt");
+        reportFile.deleteOnExit();
+        Map<String, String> properties = new HashMap<>();
+        properties.put("regressionReport", reportFile.getPath());
+        properties.put("regressionThreshold", "30");
+        properties.put("regressionThreshold.MonetaryAmountArithmeticBenchmark", "5");
+        properties.put("regressionThreshold.MonetaryAmountArithmeticBenchmark.addIntegers", "25");
+        Map<String, String> old = setProperties(properties);
+        try {
+            // only addFractions exceeds its threshold of 5%
+            assertEquals(BenchRunner.compare(baseline, current), 1);
+        } finally {
+            setProperties(old);
+        }
+        String report = new String(Files.readAllBytes(reportFile.toPath()), StandardCharsets.UTF_8);
+        assertTrue(report.contains("Default threshold 30.0%, confidence 99.9%"), report);
+        assertEquals(getStatus(report, ADD_FRACTIONS), "REGRESSION");
+        assertEquals(getStatus(report, ADD_INTEGERS), "OK");
+        assertEquals(getStatus(report, CREATE), "OK");
+    }
+
+    private static void assertStatus(String expected, boolean higherIsBetter, double baseScore,
+                                     double baseDeviation, double score, double deviation) throws IOException {
+        String mode = higherIsBetter ? "thrpt" : "avgt";
+        String unit = higherIsBetter ? "ops/us" : "us/op";
+        BenchmarkBaseline baseline = baseline("1.0", result(ADD_INTEGERS, mode, null, unit, higherIsBetter, 10,
+                baseScore, baseDeviation));
+        BenchmarkBaseline current = baseline("1.1", result(ADD_INTEGERS, mode, null, unit, higherIsBetter, 10,
+                score, deviation));
+        StringWriter report = new StringWriter();
+        int regressions = baseline.compare(current, 0.1, Collections.<String, Double>emptyMap(), CONFIDENCE,
+                new PrintWriter(report, true));
+        assertEquals(getStatus(report.toString(), ADD_INTEGERS), expected, report.toString());
+        assertEquals(regressions, "REGRESSION".equals(expected) ? 1 : 0);
+    }
+
+    private static String getStatus(String report, String benchmark) {
+        for (String line : report.split("\n")) {
+            if (line.endsWith("]") && line.contains("  " + benchmark + " [")) {
+                return line.substring(0, line.indexOf(' '));
+            }
+        }
+        throw new AssertionError("No result for " + benchmark + " in report:\n" + report);
+    }
+
+    private static Map<String, String> setProperties(Map<String, String> properties) {
+        Map<String, String> old = new HashMap<>();
+        for (Map.Entry<String, String> en : properties.entrySet()) {
+            String previous = en.getValue() == null ? System.clearProperty(en.getKey())
+                    : System.setProperty(en.getKey(), en.getValue());
+            old.put(en.getKey(), previous);
+        }
+        return old;
+    }
+
+    private static String result(String benchmark, String mode, String metric, String unit, boolean higherIsBetter,
+                                 int n, double score, double standardDeviation) {
+        return "{\"benchmark\": \"" + benchmark + "\", \"mode\": \"" + mode
+                + "\", \"params\": {\"amountClass\": \"org.javamoney.moneta.Money\"}, \"metric\": "
+                + (metric == null ? "null" : '"' + metric + '"') + ", \"unit\": \"" + unit
+                + "\", \"higherIsBetter\": " + higherIsBetter + ", \"n\": " + n + ", \"score\": " + score
+                + ", \"standardDeviation\": " + (Double.isNaN(standardDeviation) ? "null" : standardDeviation)
+                + '}';
+    }
+
+    private static BenchmarkBaseline baseline(String version, String... results) throws IOException {
+        StringBuilder b = new StringBuilder("{\"formatVersion\": ").append(BenchmarkBaseline.FORMAT_VERSION)
+                .append(", \"version\": \"").append(version.replace("\\", "\\\\").replace("\"", "\\\"")
+                        .replace("\n", "\\n"))
+                .append("\", \"created\": \"Sat Oct 17 20:02:46 UTC 2026\", \"jvm\": \"17\", \"results\": [");
+        for (int i = 0; i < results.length; i++) {
+            b.append(i == 0 ? "" : ", ").append(results[i]);
+        }
+        return write(b.append("]}").toString());
+    }
+
+    private static BenchmarkBaseline write(String json) throws IOException {
+        File file = File.createTempFile("baseline", ".json");
+        file.deleteOnExit();
+        try (Writer w = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            w.write(json);
+        }
+        return BenchmarkBaseline.read(file);
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads the {@code @SpecAssertion} annotations of the TCK test methods. {@code SpecAssertion} and
+ * {@code SpecAssertions} of jboss-test-audit-api declare no {@code @Retention}, so they have the default
+ * {@link java.lang.annotation.RetentionPolicy#CLASS} retention: they are written to the class files, but not visible
+ * by reflection. Therefore they are read from the class files directly.
+ */
+final class SpecAssertionReader {
+
+    private static final String SPEC_ASSERTION = "Lorg/jboss/test/audit/annotations/SpecAssertion;";
+    private static final String SPEC_ASSERTIONS = "Lorg/jboss/test/audit/annotations/SpecAssertions;";
+
+    private static final Map<Class<?>, Map<String, List<Assertion>>> CACHE = new ConcurrentHashMap<>();
+
+    private SpecAssertionReader() {
+    }
+
+    /**
+     * A spec assertion declared on a test method.
+     */
+    static final class Assertion {
+        private final String section;
+        private final String id;
+
+        Assertion(String section, String id) {
+            this.section = section;
+            this.id = id;
+        }
+
+        /**
+         * @return the spec section, e.g. {@code 4.2.2}.
+         */
+        String getSection() {
+            return section;
+        }
+
+        /**
+         * @return the assertion id, e.g. {@code 422-D1}.
+         */
+        String getId() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return id + " (" + section + ')';
+        }
+    }
+
+    /**
+     * Get the spec assertions declared on the given method.
+     *
+     * @param method the test method, not null.
+     * @return the assertions declared, never null.
+     */
+    static List<Assertion> getAssertions(Method method) {
+        Class<?> type = method.getDeclaringClass();
+        Map<String, List<Assertion>> assertions = CACHE.get(type);
+        if (assertions == null) {
+            assertions = readAssertions(type);
+            CACHE.put(type, assertions);
+        }
+        List<Assertion> result = assertions.get(method.getName());
+        if (result == null) {
+            return Collections.emptyList();
+        }
+        return result;
+    }
+
+    private static Map<String, List<Assertion>> readAssertions(Class<?> type) {
+        String resource = type.getName().replace('.', '/') + ".class";
+        ClassLoader cl = type.getClassLoader();
+        if (cl == null) {
+            return Collections.emptyMap();
+        }
+        try (InputStream is = cl.getResourceAsStream(resource)) {
+            if (is == null) {
+                return Collections.emptyMap();
+            }
+            return new ClassFileParser(new DataInputStream(is)).parse();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read spec assertions of " + type.getName(), e);
+        }
+    }
+
+    /**
+     * Minimal class file parser, only evaluating the method annotations.
+     */
+    private static final class ClassFileParser {
+        private final DataInputStream in;
+        private Object[] constants;
+
+        private ClassFileParser(DataInputStream in) {
+            this.in = in;
+        }
+
+        private Map<String, List<Assertion>> parse() throws IOException {
+            in.readInt(); // magic
+            in.readUnsignedShort(); // minor version
+            in.readUnsignedShort(); // major version
+            readConstantPool();
+            in.readUnsignedShort(); // access flags
+            in.readUnsignedShort(); // this class
+            in.readUnsignedShort(); // super class
+            skip(in.readUnsignedShort() * 2); // interfaces
+            int fieldCount = in.readUnsignedShort();
+            for (int i = 0; i < fieldCount; i++) {
+                skip(6);
+                skipAttributes();
+            }
+            Map<String, List<Assertion>> result = new HashMap<>();
+            int methodCount = in.readUnsignedShort();
+            for (int i = 0; i < methodCount; i++) {
+                in.readUnsignedShort(); // access flags
+                String name = (String) constants[in.readUnsignedShort()];
+                in.readUnsignedShort(); // descriptor
+                List<Assertion> assertions = new ArrayList<>();
+                int attributeCount = in.readUnsignedShort();
+                for (int a = 0; a < attributeCount; a++) {
+                    String attributeName = (String) constants[in.readUnsignedShort()];
+                    int length = in.readInt();
+                    if ("RuntimeInvisibleAnnotations".equals(attributeName)
+                            || "RuntimeVisibleAnnotations".equals(attributeName)) {
+                        int annotationCount = in.readUnsignedShort();
+                        for (int n = 0; n < annotationCount; n++) {
+                            readAnnotation(assertions);
+                        }
+                    } else {
+                        skip(length);
+                    }
+                }
+                if (!assertions.isEmpty()) {
+                    result.put(name, assertions);
+                }
+            }
+            return result;
+        }
+
+        private void readConstantPool() throws IOException {
+            int count = in.readUnsignedShort();
+            constants = new Object[count];
+            for (int i = 1; i < count; i++) {
+                int tag = in.readUnsignedByte();
+                switch (tag) {
+                    case 1: // UTF8
+                        constants[i] = in.readUTF();
+                        break;
+                    case 3: // int
+                    case 4: // float
+                        skip(4);
+                        break;
+                    case 5: // long
+                    case 6: // double
+                        skip(8);
+                        i++;
+                        break;
+                    case 7: // class
+                    case 8: // string
+                    case 16: // method type
+                    case 19: // module
+                    case 20: // package
+                        skip(2);
+                        break;
+                    case 15: // method handle
+                        skip(3);
+                        break;
+                    case 9: // field ref
+                    case 10: // method ref
+                    case 11: // interface method ref
+                    case 12: // name and type
+                    case 17: // dynamic
+                    case 18: // invoke dynamic
+                        skip(4);
+                        break;
+                    default:
+                        throw new IOException("Unsupported constant pool tag: " + tag);
+                }
+            }
+        }
+
+        /**
+         * Reads an annotation, adding it to the given list, if it is a spec assertion.
+         */
+        private void readAnnotation(List<Assertion> assertions) throws IOException {
+            String type = (String) constants[in.readUnsignedShort()];
+            int pairCount = in.readUnsignedShort();
+            String section = null;
+            String id = null;
+            for (int i = 0; i < pairCount; i++) {
+                String name = (String) constants[in.readUnsignedShort()];
+                Object value = readElementValue(SPEC_ASSERTIONS.equals(type) ? assertions : null);
+                if ("section".equals(name)) {
+                    section = (String) value;
+                } else if ("id".equals(name)) {
+                    id = (String) value;
+                }
+            }
+            if (SPEC_ASSERTION.equals(type)) {
+                assertions.add(new Assertion(section, id));
+            }
+        }
+
+        /**
+         * Reads an element value, returning its value for string constants only. Nested annotations are added to
+         * the given list, if not null.
+         */
+        private Object readElementValue(List<Assertion> assertions) throws IOException {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 's':
+                    return constants[in.readUnsignedShort()];
+                case 'e':
+                    skip(4);
+                    return null;
+                case '@':
+                    readAnnotation(assertions != null ? assertions : new ArrayList<Assertion>());
+                    return null;
+                case '[':
+                    int count = in.readUnsignedShort();
+                    for (int i = 0; i < count; i++) {
+                        readElementValue(assertions);
+                    }
+                    return null;
+                default:
+                    skip(2);
+                    return null;
+            }
+        }
+
+        private void skipAttributes() throws IOException {
+            int count = in.readUnsignedShort();
+            for (int i = 0; i < count; i++) {
+                skip(2);
+                skip(in.readInt());
+            }
+        }
+
+        private void skip(int bytes) throws IOException {
+            in.readFully(new byte[bytes]);
+        }
+    }
+}
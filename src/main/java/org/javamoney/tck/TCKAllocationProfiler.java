@@ -0,0 +1,360 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck;
+
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryOperator;
+import javax.money.MonetaryQuery;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures the bytes allocated per call of the {@link MonetaryAmount} methods tested by
+ * {@link org.javamoney.tck.tests.ModellingMonetaryAmountsTest}, for each amount class of the implementation tested,
+ * see {@link JSR354TestConfiguration#getAmountClasses()}. The allocations are measured with
+ * {@link TestUtils#measureAllocatedBytes(int, Runnable)}, i.e. the JVM must support
+ * {@code com.sun.management.ThreadMXBean}. The result is a table of amount class &times; operation &rarr; bytes per
+ * call.
+ */
+public final class TCKAllocationProfiler {
+
+    private static final int ITERATIONS = 10000;
+    private static final String DEFAULT_CURRENCY = "CHF";
+
+    private final List<String> amountClasses = new ArrayList<>();
+    private final List<String> operations = new ArrayList<>();
+    /**
+     * The bytes per call by amount class and operation, -1 if the allocations cannot be measured, null if the
+     * operation failed.
+     */
+    private final Map<String, Map<String, Long>> bytesPerCall = new HashMap<>();
+    private final Map<String, String> failures = new LinkedHashMap<>();
+
+    /**
+     * Result of the last operation measured, so it cannot be optimized away.
+     */
+    private volatile Object sink;
+
+    /**
+     * A {@link MonetaryAmount} operation measured, called with two amounts of the same class and currency.
+     */
+    private abstract static class Operation {
+        private final String name;
+
+        private Operation(String name) {
+            this.name = name;
+        }
+
+        abstract Object apply(MonetaryAmount amount1, MonetaryAmount amount2);
+    }
+
+    private static final MonetaryOperator IDENTITY_OPERATOR = new MonetaryOperator() {
+        @Override
+        public MonetaryAmount apply(MonetaryAmount amount) {
+            return amount;
+        }
+    };
+
+    private static final MonetaryQuery<CurrencyUnit> CURRENCY_QUERY = new MonetaryQuery<CurrencyUnit>() {
+        @Override
+        public CurrencyUnit queryFrom(MonetaryAmount amount) {
+            return amount.getCurrency();
+        }
+    };
+
+    private static final Operation[] OPERATIONS = {
+            new Operation("add(MonetaryAmount)") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.add(amount2);
+                }
+            },
+            new Operation("subtract(MonetaryAmount)") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.subtract(amount2);
+                }
+            },
+            new Operation("multiply(long)") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.multiply(3L);
+                }
+            },
+            new Operation("multiply(double)") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.multiply(1.5d);
+                }
+            },
+            new Operation("multiply(Number)") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.multiply(BigDecimal.TEN);
+                }
+            },
+            new Operation("divide(long)") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.divide(4L);
+                }
+            },
+            new Operation("divide(double)") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.divide(0.5d);
+                }
+            },
+            new Operation("divide(Number)") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.divide(BigDecimal.TEN);
+                }
+            },
+            new Operation("remainder(long)") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.remainder(3L);
+                }
+            },
+            new Operation("remainder(Number)") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.remainder(BigDecimal.TEN);
+                }
+            },
+            new Operation("divideAndRemainder(long)") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.divideAndRemainder(3L);
+                }
+            },
+            new Operation("divideToIntegralValue(long)") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.divideToIntegralValue(3L);
+                }
+            },
+            new Operation("scaleByPowerOfTen(int)") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.scaleByPowerOfTen(2);
+                }
+            },
+            new Operation("negate()") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.negate();
+                }
+            },
+            new Operation("plus()") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.plus();
+                }
+            },
+            new Operation("abs()") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.abs();
+                }
+            },
+            new Operation("stripTrailingZeros()") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.stripTrailingZeros();
+                }
+            },
+            new Operation("signum()") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.signum();
+                }
+            },
+            new Operation("isZero()") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.isZero();
+                }
+            },
+            new Operation("isPositive()") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.isPositive();
+                }
+            },
+            new Operation("isNegativeOrZero()") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.isNegativeOrZero();
+                }
+            },
+            new Operation("compareTo(MonetaryAmount)") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.compareTo(amount2);
+                }
+            },
+            new Operation("isEqualTo(MonetaryAmount)") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.isEqualTo(amount2);
+                }
+            },
+            new Operation("isGreaterThan(MonetaryAmount)") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.isGreaterThan(amount2);
+                }
+            },
+            new Operation("isLessThanOrEqualTo(MonetaryAmount)") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.isLessThanOrEqualTo(amount2);
+                }
+            },
+            new Operation("equals(Object)") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.equals(amount2);
+                }
+            },
+            new Operation("hashCode()") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.hashCode();
+                }
+            },
+            new Operation("getCurrency()") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.getCurrency();
+                }
+            },
+            new Operation("getNumber()") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.getNumber();
+                }
+            },
+            new Operation("getContext()") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.getContext();
+                }
+            },
+            new Operation("getFactory()") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.getFactory();
+                }
+            },
+            new Operation("with(MonetaryOperator)") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.with(IDENTITY_OPERATOR);
+                }
+            },
+            new Operation("query(MonetaryQuery)") {
+                @Override
+                Object apply(MonetaryAmount amount1, MonetaryAmount amount2) {
+                    return amount1.query(CURRENCY_QUERY);
+                }
+            }
+    };
+
+    /**
+     * Measures all operations for all amount classes configured. Failures are recorded with the operation and do
+     * not stop the profiling, they are reported by the TCK tests anyway.
+     */
+    public void run() {
+        for (Operation operation : OPERATIONS) {
+            operations.add(operation.name);
+        }
+        for (Class<?> type : TCKTestSetup.getTestConfiguration().getAmountClasses()) {
+            amountClasses.add(type.getName());
+            Map<String, Long> results = new HashMap<>();
+            bytesPerCall.put(type.getName(), results);
+            final MonetaryAmount amount1;
+            final MonetaryAmount amount2;
+            try {
+                Class<? extends MonetaryAmount> amountType = type.asSubclass(MonetaryAmount.class);
+                amount1 = Monetary.getAmountFactory(amountType)
+                        .setCurrency(DEFAULT_CURRENCY).setNumber(new BigDecimal("12.5")).create();
+                amount2 = Monetary.getAmountFactory(amountType)
+                        .setCurrency(DEFAULT_CURRENCY).setNumber(new BigDecimal("2.25")).create();
+            } catch (RuntimeException e) {
+                failures.put(type.getName(), "amounts cannot be created: " + e);
+                continue;
+            }
+            for (final Operation operation : OPERATIONS) {
+                try {
+                    results.put(operation.name, TestUtils.measureAllocatedBytes(ITERATIONS, new Runnable() {
+                        @Override
+                        public void run() {
+                            sink = operation.apply(amount1, amount2);
+                        }
+                    }));
+                } catch (RuntimeException e) {
+                    failures.put(type.getName() + '.' + operation.name, e.toString());
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the amount classes measured.
+     *
+     * @return the class names, in configuration order, never null.
+     */
+    public List<String> getAmountClasses() {
+        return Collections.unmodifiableList(amountClasses);
+    }
+
+    /**
+     * Get the operations measured.
+     *
+     * @return the operation names, e.g. {@code add(MonetaryAmount)}, never null.
+     */
+    public List<String> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    /**
+     * Get the bytes allocated per call of the given operation.
+     *
+     * @param amountClass the amount class name, see {@link #getAmountClasses()}.
+     * @param operation   the operation name, see {@link #getOperations()}.
+     * @return the bytes per call, -1 if allocations cannot be measured by the JVM, or null if the operation failed.
+     */
+    public Long getBytesPerCall(String amountClass, String operation) {
+        Map<String, Long> results = bytesPerCall.get(amountClass);
+        if (results == null) {
+            return null;
+        }
+        return results.get(operation);
+    }
+
+    /**
+     * Get the failures occurred.
+     *
+     * @return the failures, by amount class or amount class and operation, never null.
+     */
+    public Map<String, String> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+}
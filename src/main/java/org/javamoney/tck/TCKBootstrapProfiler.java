@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck;
+
+import javax.money.Monetary;
+import javax.money.convert.ExchangeRateProvider;
+import javax.money.convert.MonetaryConversions;
+import javax.money.format.MonetaryFormats;
+import javax.money.spi.CurrencyProviderSpi;
+import javax.money.spi.MonetaryAmountFactoryProviderSpi;
+import javax.money.spi.MonetaryAmountFormatProviderSpi;
+import javax.money.spi.RoundingProviderSpi;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Measures the bootstrap cost of the implementation tested, before any TCK test is executed. Otherwise the first
+ * test touching {@link Monetary}, {@link MonetaryConversions} or {@link MonetaryFormats} would pay the whole
+ * bootstrap cost. The phases measured are:
+ * <ol>
+ *     <li>the {@link ServiceLoader} discovery of each SPI, measured per provider found. The discovery is measured
+ *     first, so loading, initializing and instantiating the provider classes is measured cold. Classes shared by
+ *     multiple providers are attributed to the first provider loading them,</li>
+ *     <li>loading the TCK test configuration, see {@link TCKTestSetup},</li>
+ *     <li>the first access of the API singletons, which includes the bootstrap of the service provider and any
+ *     data loaded by the implementation. The provider classes are already loaded by then.</li>
+ * </ol>
+ * The profile must be run before the API is used, i.e. before any TCK test is executed.
+ */
+public final class TCKBootstrapProfiler {
+
+    private static final Class<?>[] SPIS = {CurrencyProviderSpi.class, RoundingProviderSpi.class,
+            MonetaryAmountFactoryProviderSpi.class, ExchangeRateProvider.class, MonetaryAmountFormatProviderSpi.class};
+
+    private final List<Phase> phases = new ArrayList<>();
+
+    /**
+     * A bootstrap phase measured.
+     */
+    public static final class Phase {
+        private final String name;
+        private final long nanos;
+        private final String detail;
+        private final boolean nested;
+
+        private Phase(String name, long nanos, String detail, boolean nested) {
+            this.name = name;
+            this.nanos = nanos;
+            this.detail = detail;
+            this.nested = nested;
+        }
+
+        /**
+         * @return the name of the phase, e.g. the SPI or the provider class.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the duration of the phase in nanoseconds.
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return additional information, e.g. the number of providers found or the error occurred, or null.
+         */
+        public String getDetail() {
+            return detail;
+        }
+
+        /**
+         * @return true, if the phase is part of the preceding top level phase, e.g. a single provider of a SPI.
+         */
+        public boolean isNested() {
+            return nested;
+        }
+    }
+
+    /**
+     * Executes and measures all bootstrap phases. Failures are recorded with the phase and do not stop the
+     * profiling, they are reported by the TCK tests anyway.
+     */
+    public void run() {
+        for (Class<?> spi : SPIS) {
+            discover(spi);
+        }
+        measure("TCK test configuration", new Runnable() {
+            @Override
+            public void run() {
+                TCKTestSetup.getTestConfiguration();
+            }
+        });
+        measure("Monetary currencies (first access)", new Runnable() {
+            @Override
+            public void run() {
+                Monetary.getCurrencies();
+            }
+        });
+        measure("Monetary amounts (first access)", new Runnable() {
+            @Override
+            public void run() {
+                Monetary.getDefaultAmountFactory();
+            }
+        });
+        measure("Monetary roundings (first access)", new Runnable() {
+            @Override
+            public void run() {
+                Monetary.getDefaultRounding();
+            }
+        });
+        measure("MonetaryConversions (first access)", new Runnable() {
+            @Override
+            public void run() {
+                MonetaryConversions.getConversionProviderNames();
+            }
+        });
+        measure("MonetaryFormats (first access)", new Runnable() {
+            @Override
+            public void run() {
+                MonetaryFormats.getFormatProviderNames();
+            }
+        });
+    }
+
+    /**
+     * Get the phases measured.
+     *
+     * @return the phases, in execution order, never null.
+     */
+    public List<Phase> getPhases() {
+        return Collections.unmodifiableList(phases);
+    }
+
+    /**
+     * Get the total duration of all top level phases.
+     *
+     * @return the total duration in nanoseconds.
+     */
+    public long getTotalNanos() {
+        long total = 0L;
+        for (Phase phase : phases) {
+            if (!phase.nested) {
+                total += phase.nanos;
+            }
+        }
+        return total;
+    }
+
+    private void measure(String name, Runnable action) {
+        long start = System.nanoTime();
+        String detail = null;
+        try {
+            action.run();
+        } catch (RuntimeException | LinkageError | ServiceConfigurationError e) {
+            detail = "failed: " + e;
+        }
+        phases.add(new Phase(name, System.nanoTime() - start, detail, false));
+    }
+
+    private void discover(Class<?> spi) {
+        List<Phase> providers = new ArrayList<>();
+        String detail = null;
+        long start = System.nanoTime();
+        try {
+            Iterator<?> iterator = ServiceLoader.load(spi).iterator();
+            long providerStart = System.nanoTime();
+            while (iterator.hasNext()) {
+                Object provider = iterator.next();
+                long now = System.nanoTime();
+                providers.add(new Phase(provider.getClass().getName(), now - providerStart, null, true));
+                providerStart = now;
+            }
+            detail = providers.size() + " providers";
+        } catch (RuntimeException | LinkageError | ServiceConfigurationError e) {
+            detail = "failed after " + providers.size() + " providers: " + e;
+        }
+        phases.add(new Phase("ServiceLoader " + spi.getName(), System.nanoTime() - start, detail, false));
+        phases.addAll(providers);
+    }
+}
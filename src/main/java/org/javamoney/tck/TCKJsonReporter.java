@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck;
+
+import org.testng.ITestListener;
+import org.testng.ITestResult;
+import org.testng.annotations.Test;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streaming reporter writing one JSON record per test (JSON Lines) as soon as the test has finished, so long
+ * running TCK executions can be followed in real time. The records are passed through a bounded queue to a
+ * writer thread, so the tests are not slowed down by the file IO. If the writer thread fails, the remaining records
+ * are dropped instead of blocking the tests. Optionally a JUnit XML report is written when the reporter is closed.
+ */
+public final class TCKJsonReporter implements ITestListener {
+
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final int MAX_STACK_FRAMES = 20;
+    private static final String END = "";
+    private static final long OFFER_TIMEOUT_MILLIS = 100L;
+
+    private final BlockingQueue<String> queue = new LinkedBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread writerThread;
+    private final File junitFile;
+    private final Map<String, List<TestCase>> testCases = new LinkedHashMap<>();
+    private volatile IOException writeError;
+    private final AtomicInteger droppedRecords = new AtomicInteger();
+
+    /**
+     * A test result, as written to the JUnit XML report.
+     */
+    private static final class TestCase {
+        private final String method;
+        private final String outcome;
+        private final long millis;
+        private final String message;
+        private final String stackTrace;
+
+        private TestCase(String method, String outcome, long millis, String message, String stackTrace) {
+            this.method = method;
+            this.outcome = outcome;
+            this.millis = millis;
+            this.message = message;
+            this.stackTrace = stackTrace;
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param jsonFile  the JSON Lines target file, not null.
+     * @param junitFile the JUnit XML target file, or null.
+     * @throws IOException if the JSON file cannot be created.
+     */
+    public TCKJsonReporter(File jsonFile, File junitFile) throws IOException {
+        this.junitFile = junitFile;
+        final Writer writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(jsonFile), StandardCharsets.UTF_8));
+        writerThread = new Thread("TCK-JSON-Reporter") {
+            @Override
+            public void run() {
+                try (Writer w = writer) {
+                    List<String> records = new ArrayList<>();
+                    while (true) {
+                        records.add(queue.take());
+                        queue.drainTo(records);
+                        for (String record : records) {
+                            if (END.equals(record)) {
+                                return;
+                            }
+                            w.write(record);
+                            w.write('\n');
+                        }
+                        records.clear();
+                        w.flush();
+                    }
+                } catch (IOException e) {
+                    writeError = e;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @Override
+    public void onTestSuccess(ITestResult tr) {
+        report(tr, TCKRunner.TCKReporter.SUCCESS);
+    }
+
+    @Override
+    public void onTestFailure(ITestResult tr) {
+        report(tr, TCKRunner.TCKReporter.FAILED);
+    }
+
+    @Override
+    public void onTestSkipped(ITestResult tr) {
+        report(tr, TCKRunner.TCKReporter.SKIPPED);
+    }
+
+    /**
+     * Writes all pending records and closes the reporter, also writing the JUnit XML report, if configured.
+     *
+     * @throws IOException if writing failed.
+     */
+    public void close() throws IOException {
+        try {
+            if (enqueue(END)) {
+                writerThread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writeError != null) {
+            throw writeError;
+        }
+        if (droppedRecords.get() > 0) {
+            throw new IOException("JSON report writer terminated, " + droppedRecords.get() + " records dropped");
+        }
+        if (junitFile != null) {
+            writeJUnitReport();
+        }
+    }
+
+    private void report(ITestResult tr, String outcome) {
+        Method method = tr.getMethod().getConstructorOrMethod().getMethod();
+        String testClass = tr.getTestClass().getRealClass().getName();
+        long millis = Math.max(0L, tr.getEndMillis() - tr.getStartMillis());
+        Test test = method.getAnnotation(Test.class);
+        List<SpecAssertionReader.Assertion> assertions = SpecAssertionReader.getAssertions(method);
+        Throwable throwable = tr.getThrowable();
+        String message = throwable != null ? throwable.getMessage() : null;
+        String stackTrace = throwable != null ? getTrimmedStackTrace(throwable, method) : null;
+
+        StringBuilder b = new StringBuilder(256);
+        b.append("{\"class\":").append(quote(testClass));
+        b.append(",\"method\":").append(quote(method.getName()));
+        b.append(",\"description\":").append(quote(test != null ? test.description() : null));
+        b.append(",\"section\":").append(quote(assertions.isEmpty() ? null : assertions.get(0).getSection()));
+        b.append(",\"assertionId\":").append(quote(assertions.isEmpty() ? null : assertions.get(0).getId()));
+        b.append(",\"outcome\":").append(quote(outcome));
+        b.append(",\"startMillis\":").append(tr.getStartMillis());
+        b.append(",\"durationMillis\":").append(millis);
+        b.append(",\"thread\":").append(quote(Thread.currentThread().getName()));
+        b.append(",\"message\":").append(quote(message));
+        b.append(",\"stackTrace\":").append(quote(stackTrace));
+        b.append('}');
+        try {
+            if (!enqueue(b.toString()) && droppedRecords.getAndIncrement() == 0) {
+                System.err.println("JSON report writer terminated, dropping records"
+                        + (writeError != null ? ": " + writeError : ""));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (junitFile != null) {
+            synchronized (testCases) {
+                List<TestCase> cases = testCases.get(testClass);
+                if (cases == null) {
+                    cases = new ArrayList<>();
+                    testCases.put(testClass, cases);
+                }
+                cases.add(new TestCase(method.getName(), outcome, millis, message, stackTrace));
+            }
+        }
+    }
+
+    /**
+     * Passes the given record to the writer thread, waiting while the queue is full, as long as the writer thread
+     * is alive.
+     *
+     * @return true, if the record was queued, false if the writer thread has terminated.
+     */
+    private boolean enqueue(String record) throws InterruptedException {
+        while (writeError == null && writerThread.isAlive()) {
+            if (queue.offer(record, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Evaluates the stack trace of the given throwable, omitting all frames below the test method (the TestNG
+     * and reflection frames). Causes are listed with their message only.
+     */
+    static String getTrimmedStackTrace(Throwable throwable, Method testMethod) {
+        StringBuilder b = new StringBuilder();
+        b.append(throwable);
+        StackTraceElement[] frames = throwable.getStackTrace();
+        for (int i = 0; i < frames.length && i < MAX_STACK_FRAMES; i++) {
+            b.append("\n\tat ").append(frames[i]);
+            if (frames[i].getClassName().equals(testMethod.getDeclaringClass().getName())
+                    && frames[i].getMethodName().equals(testMethod.getName())) {
+                break;
+            }
+        }
+        Throwable cause = throwable.getCause();
+        while (cause != null && cause != cause.getCause()) {
+            b.append("\nCaused by: ").append(cause);
+            cause = cause.getCause();
+        }
+        return b.toString();
+    }
+
+    private void writeJUnitReport() throws IOException {
+        try (Writer w = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(junitFile), StandardCharsets.UTF_8))) {
+            w.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<testsuites name=\"JSR354-TCK\">\n");
+            synchronized (testCases) {
+                for (Map.Entry<String, List<TestCase>> en : testCases.entrySet()) {
+                    int failures = 0;
+                    int skipped = 0;
+                    long millis = 0L;
+                    for (TestCase testCase : en.getValue()) {
+                        if (TCKRunner.TCKReporter.FAILED.equals(testCase.outcome)) {
+                            failures++;
+                        } else if (TCKRunner.TCKReporter.SKIPPED.equals(testCase.outcome)) {
+                            skipped++;
+                        }
+                        millis += testCase.millis;
+                    }
+                    w.write("  <testsuite name=\"" + xml(en.getKey()) + "\" tests=\"" + en.getValue().size()
+                            + "\" failures=\"" + failures + "\" errors=\"0\" skipped=\"" + skipped
+                            + "\" time=\"" + seconds(millis) + "\">\n");
+                    for (TestCase testCase : en.getValue()) {
+                        w.write("    <testcase classname=\"" + xml(en.getKey()) + "\" name=\""
+                                + xml(testCase.method) + "\" time=\"" + seconds(testCase.millis) + '"');
+                        if (TCKRunner.TCKReporter.FAILED.equals(testCase.outcome)) {
+                            w.write(">\n      <failure message=\"" + xml(testCase.message) + "\">"
+                                    + xml(testCase.stackTrace) + "</failure>\n    </testcase>\n");
+                        } else if (TCKRunner.TCKReporter.SKIPPED.equals(testCase.outcome)) {
+                            w.write(">\n      <skipped/>\n    </testcase>\n");
+                        } else {
+                            w.write("/>\n");
+                        }
+                    }
+                    w.write("  </testsuite>\n");
+                }
+            }
+            w.write("</testsuites>\n");
+        }
+    }
+
+    private static String seconds(long millis) {
+        return String.format(java.util.Locale.ENGLISH, "%.3f", millis / 1000.0);
+    }
+
+    /**
+     * Quotes the given value as JSON string, also used by the benchmark baselines of the bench module.
+     *
+     * @param value the value, may be null.
+     * @return the JSON string, or {@code null}, if the value is null.
+     */
+    public static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder b = new StringBuilder(value.length() + 2);
+        b.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    b.append("\\\"");
+                    break;
+                case '\\':
+                    b.append("\\\\");
+                    break;
+                case '\n':
+                    b.append("\\n");
+                    break;
+                case '\r':
+                    b.append("\\r");
+                    break;
+                case '\t':
+                    b.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        b.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        b.append(c);
+                    }
+            }
+        }
+        return b.append('"').toString();
+    }
+
+    private static String xml(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder b = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<':
+                    b.append("&lt;");
+                    break;
+                case '>':
+                    b.append("&gt;");
+                    break;
+                case '&':
+                    b.append("&amp;");
+                    break;
+                case '"':
+                    b.append("&quot;");
+                    break;
+                default:
+                    if (c >= 0x20 || c == '\n' || c == '\r' || c == '\t') {
+                        b.append(c);
+                    }
+            }
+        }
+        return b.toString();
+    }
+}
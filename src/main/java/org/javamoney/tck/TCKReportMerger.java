@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tool for combining the result reports written by several TCK runs, e.g. the shards of a TCK run executed with
+ * {@code -Dshard=i/n}, into one summary report. Usage:
+ * <pre>
+ * java -cp ... [-DreportFile=merged.txt] org.javamoney.tck.TCKReportMerger shard1.txt shard2.txt ...
+ * </pre>
+ * The merged report is written to {@code ./target/tck-results-merged.txt}, if no {@code reportFile} is set.
+ */
+public final class TCKReportMerger {
+
+    private static final String SUCCESS = "[SUCCESS] ";
+    private static final String FAILED = "[FAILED]  ";
+    private static final String SKIPPED = "[SKIPPED] ";
+    private static final String SUMMARY = "JSR 354 TCK";
+    private static final String RECOMMENDATIONS = "RECOMMENDATIONS NOT MET";
+    private static final Pattern LOCATION = Pattern.compile("\\(([^()]+#[^()]+)\\):?$");
+
+    private final Map<String, List<String>> entries = new LinkedHashMap<>();
+    private final Set<String> warnings = new LinkedHashSet<>();
+    private final List<File> reports = new ArrayList<>();
+
+    /**
+     * Adds the test entries and the recommendation warnings of the given TCK report. If a test is contained in
+     * several reports, the entry read last wins, warnings contained in several reports are added only once.
+     *
+     * @param report the report file, not null.
+     * @throws IOException if the report cannot be read.
+     */
+    public void addReport(File report) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(report))) {
+            List<String> current = null;
+            boolean summary = false;
+            boolean inWarnings = false;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (summary) {
+                    if (line.startsWith(RECOMMENDATIONS)) {
+                        inWarnings = true;
+                    } else if (line.trim().isEmpty()) {
+                        inWarnings = false;
+                    } else if (inWarnings) {
+                        warnings.add(line);
+                    }
+                } else if (isEntry(line)) {
+                    current = new ArrayList<>();
+                    current.add(line);
+                    entries.put(getLocation(line), current);
+                } else if (line.startsWith(SUMMARY)) {
+                    current = null;
+                    summary = true;
+                } else if (current != null) {
+                    current.add(line);
+                }
+            }
+        }
+        reports.add(report);
+    }
+
+    /**
+     * Writes the merged report, containing all test entries and the summary evaluated from them.
+     *
+     * @param target the target file, not null.
+     * @throws IOException if the report cannot be written.
+     */
+    public void writeReport(File target) throws IOException {
+        try (Writer w = new FileWriter(target)) {
+            w.write("********************************************************************************************\n");
+            w.write("**** JSR 354 - Money & Currency, Technical Compatibility Kit, version 1.1\n");
+            w.write("********************************************************************************************\n\n");
+            w.write("Merged on " + new java.util.Date() + " from:\n");
+            for (File report : reports) {
+                w.write("  " + report.getPath() + '\n');
+            }
+            w.write('\n');
+            for (List<String> entry : entries.values()) {
+                int end = entry.size();
+                while (end > 1 && entry.get(end - 1).trim().isEmpty()) {
+                    end--;
+                }
+                for (String line : entry.subList(0, end)) {
+                    w.write(line);
+                    w.write('\n');
+                }
+            }
+            w.write(getSummary());
+        }
+    }
+
+    /**
+     * Evaluates the summary of all test entries added, followed by the recommendation warnings of all reports.
+     *
+     * @return the summary, in the same format as written by the TCK.
+     */
+    public String getSummary() {
+        int skipped = 0;
+        int failed = 0;
+        int success = 0;
+        for (List<String> entry : entries.values()) {
+            String status = entry.get(0);
+            if (status.startsWith(SUCCESS)) {
+                success++;
+            } else if (status.startsWith(FAILED)) {
+                failed++;
+            } else {
+                skipped++;
+            }
+        }
+        StringBuilder b = new StringBuilder();
+        b.append("\nJSR 354 TCK, version 1.1 Summary\n")
+                .append("------------------------------------------\n")
+                .append("\nTOTAL TESTS EXECUTED : ").append(entries.size()).append('\n')
+                .append("TOTAL TESTS SKIPPED  : ").append(skipped).append('\n')
+                .append("TOTAL TESTS SUCCESS  : ").append(success).append('\n')
+                .append("TOTAL TESTS FAILED   : ").append(failed).append('\n');
+        if (!warnings.isEmpty()) {
+            b.append('\n').append(RECOMMENDATIONS).append('\n');
+            for (String warning : warnings) {
+                b.append(warning).append('\n');
+            }
+        }
+        return b.toString();
+    }
+
+    private static boolean isEntry(String line) {
+        return line.startsWith(SUCCESS) || line.startsWith(FAILED) || line.startsWith(SKIPPED);
+    }
+
+    private static String getLocation(String line) {
+        Matcher matcher = LOCATION.matcher(line);
+        if (matcher.find()) {
+            return matcher.group(1);
+        }
+        // entries without description, failures are followed by a colon
+        String location = line.substring(SUCCESS.length()).trim();
+        if (location.endsWith(":")) {
+            location = location.substring(0, location.length() - 1);
+        }
+        return location;
+    }
+
+    /**
+     * Merges the TCK reports given as arguments.
+     *
+     * @param args the report files to be merged.
+     * @throws IOException if a report cannot be read or written.
+     */
+    public static void main(String... args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: TCKReportMerger report1.txt report2.txt ...");
+            return;
+        }
+        TCKReportMerger merger = new TCKReportMerger();
+        for (String arg : args) {
+            merger.addReport(new File(arg));
+        }
+        String reportFile = System.getProperty("reportFile");
+        File file;
+        if (reportFile != null) {
+            file = new File(reportFile);
+        } else {
+            file = new File("./target/tck-results-merged.txt");
+        }
+        System.out.println("Writing merged report to file " + file.getAbsolutePath() + " ...");
+        merger.writeReport(file);
+        System.out.println(merger.getSummary());
+    }
+}
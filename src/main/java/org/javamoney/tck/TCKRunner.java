@@ -20,6 +20,13 @@ import org.javamoney.tck.tests.conversion.ExchangeRatesAndRateProvidersTest;
 import org.javamoney.tck.tests.conversion.MonetaryConversionsTest;
 import org.javamoney.tck.tests.conversion.ProviderChainsTest;
 import org.javamoney.tck.tests.format.FormattingMonetaryAmountsTest;
+import org.javamoney.tck.tests.concurrency.AmountFactoryStressTest;
+import org.javamoney.tck.tests.concurrency.CurrencyLookupStressTest;
+import org.javamoney.tck.tests.concurrency.FormatStressTest;
+import org.javamoney.tck.tests.concurrency.ProviderChainStressTest;
+import org.javamoney.tck.tests.concurrency.RoundingLookupStressTest;
+import org.javamoney.tck.tests.concurrency.VirtualThreadSupport;
+import org.javamoney.tck.tests.performance.PerformanceRecommendationsTest;
 import org.testng.ITestResult;
 import org.testng.Reporter;
 import org.testng.TestListenerAdapter;
@@ -28,10 +35,14 @@ import org.testng.annotations.Test;
 import org.testng.internal.ConstructorOrMethod;
 import org.testng.reporters.VerboseReporter;
 import org.testng.xml.XmlClass;
+import org.testng.xml.XmlInclude;
 import org.testng.xml.XmlSuite;
+import org.testng.xml.XmlSuite.ParallelMode;
 import org.testng.xml.XmlTest;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
@@ -39,12 +50,23 @@ import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 import javax.lang.model.SourceVersion;
 import javax.tools.Tool;
@@ -54,6 +76,26 @@ import javax.tools.Tool;
  * Created by Anatole on 12.06.2014.
  */
 public final class TCKRunner extends XmlSuite implements Tool {
+
+    /**
+     * Test classes that touch global state (the TCK bootstrap, the shared {@link TestUtils} warnings and
+     * mutability analysis, the mutable TCK {@code TestAmount} and the default locale) or measure performance, which
+     * must not be disturbed by concurrently running tests. In parallel mode these classes are kept in a separate test
+     * that is always executed serially.
+     */
+    private static final Set<Class<?>> SERIAL_CLASSES = new HashSet<Class<?>>(Arrays.<Class<?>>asList(
+            TCKTestSetup.class,
+            ModellingCurrenciesTest.class,
+            ModellingMonetaryAmountsTest.class,
+            AccessingCurrenciesAmountsRoundingsTest.class,
+            FormattingMonetaryAmountsTest.class,
+            PerformanceRecommendationsTest.class,
+            CurrencyLookupStressTest.class,
+            ProviderChainStressTest.class,
+            AmountFactoryStressTest.class,
+            FormatStressTest.class,
+            RoundingLookupStressTest.class));
+
     /**
      * Constructor.
      */
@@ -74,9 +116,237 @@ public final class TCKRunner extends XmlSuite implements Tool {
         classes.add(new XmlClass(ConvertingAmountsTest.class));
         classes.add(new XmlClass(ProviderChainsTest.class));
         classes.add(new XmlClass(FormattingMonetaryAmountsTest.class));
+        classes.add(new XmlClass(PerformanceRecommendationsTest.class));
+        if (isStressTestsEnabled()) {
+            classes.add(new XmlClass(CurrencyLookupStressTest.class));
+            classes.add(new XmlClass(ProviderChainStressTest.class));
+            classes.add(new XmlClass(AmountFactoryStressTest.class));
+            classes.add(new XmlClass(FormatStressTest.class));
+            classes.add(new XmlClass(RoundingLookupStressTest.class));
+        }
         test.setXmlClasses(classes);
     }
 
+    /**
+     * Checks if the concurrency stress tests of section 3.4 are executed, which is only the case when enabled with
+     * {@code -DstressTests=true}, since they take considerably longer than the rest of the TCK.
+     *
+     * @return true, if the stress tests are part of the suite.
+     */
+    static boolean isStressTestsEnabled() {
+        return "true".equalsIgnoreCase(System.getProperty("stressTests"));
+    }
+
+    /**
+     * Enables parallel execution of the TCK tests. All classes not contained in {@link #SERIAL_CLASSES} are moved
+     * into a separate test, which is executed after the serial one using the given parallel mode.
+     *
+     * @param mode        the parallel mode, either {@code classes} or {@code methods}.
+     * @param threadCount the number of threads to be used.
+     */
+    void setParallelMode(String mode, int threadCount) {
+        ParallelMode parallelMode = ParallelMode.getValidParallel(mode);
+        if (parallelMode != ParallelMode.CLASSES && parallelMode != ParallelMode.METHODS) {
+            throw new IllegalArgumentException("Unsupported parallel mode: " + mode
+                    + ", use 'classes' or 'methods'.");
+        }
+        XmlTest serialTest = getTests().get(0);
+        List<XmlClass> serialClasses = new ArrayList<>(serialTest.getXmlClasses());
+        List<XmlClass> parallelClasses = new ArrayList<>();
+        for (Iterator<XmlClass> it = serialClasses.iterator(); it.hasNext(); ) {
+            XmlClass xmlClass = it.next();
+            if (!SERIAL_CLASSES.contains(xmlClass.getSupportClass())) {
+                parallelClasses.add(xmlClass);
+                it.remove();
+            }
+        }
+        serialTest.setXmlClasses(serialClasses);
+        XmlTest parallelTest = new XmlTest(this);
+        parallelTest.setName("TCK/Parallel");
+        parallelTest.setXmlClasses(parallelClasses);
+        parallelTest.setParallel(parallelMode);
+        parallelTest.setThreadCount(threadCount);
+    }
+
+    /**
+     * Evaluates the test methods currently selected by this suite. The methods are ordered by test class, in suite
+     * order, and by method name, so the result is deterministic.
+     *
+     * @return the selected test methods, never null.
+     */
+    List<Method> getSelectedTestMethods() {
+        List<Method> result = new ArrayList<>();
+        for (XmlTest test : getTests()) {
+            for (XmlClass xmlClass : test.getXmlClasses()) {
+                Set<String> included = new HashSet<>();
+                for (XmlInclude include : xmlClass.getIncludedMethods()) {
+                    included.add(include.getName());
+                }
+                for (Method method : getTestMethods(xmlClass.getSupportClass())) {
+                    if (included.isEmpty() || included.contains(method.getName())) {
+                        result.add(method);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Restricts this suite to the given test methods. Test classes without any selected method are removed,
+     * classes not declaring any test methods at all (such as {@link TCKTestSetup}) are kept.
+     *
+     * @param methods the test methods to be executed, not null.
+     */
+    void selectTestMethods(Collection<Method> methods) {
+        for (XmlTest test : getTests()) {
+            List<XmlClass> classes = new ArrayList<>();
+            for (XmlClass xmlClass : test.getXmlClasses()) {
+                List<Method> testMethods = getTestMethods(xmlClass.getSupportClass());
+                List<XmlInclude> includes = new ArrayList<>();
+                for (Method method : testMethods) {
+                    if (methods.contains(method)) {
+                        includes.add(new XmlInclude(method.getName()));
+                    }
+                }
+                if (testMethods.isEmpty()) {
+                    classes.add(xmlClass);
+                } else if (!includes.isEmpty()) {
+                    xmlClass.setIncludedMethods(includes);
+                    classes.add(xmlClass);
+                }
+            }
+            test.setXmlClasses(classes);
+        }
+    }
+
+    /**
+     * Restricts this suite to the given shard. The selected test methods are distributed round-robin, so
+     * expensive test classes are spread over all shards.
+     *
+     * @param shard      the shard to be executed, starting with 1.
+     * @param shardCount the total number of shards.
+     */
+    void setShard(int shard, int shardCount) {
+        if (shardCount < 1 || shard < 1 || shard > shardCount) {
+            throw new IllegalArgumentException("Invalid shard: " + shard + '/' + shardCount);
+        }
+        List<Method> selected = new ArrayList<>();
+        List<Method> methods = getSelectedTestMethods();
+        for (int i = shard - 1; i < methods.size(); i += shardCount) {
+            selected.add(methods.get(i));
+        }
+        selectTestMethods(selected);
+    }
+
+    /**
+     * Restricts this suite to the test methods with a spec assertion matching the given filters. Each filter is a
+     * comma separated list of patterns, where {@code *} matches any characters. Patterns prefixed with {@code !}
+     * exclude matching assertions, e.g. {@code 422-D*,433-*,!433-A3}.
+     *
+     * @param sectionFilter the filter on the assertion sections, or null.
+     * @param idFilter      the filter on the assertion ids, or null.
+     */
+    void setAssertionFilter(String sectionFilter, String idFilter) {
+        List<Method> selected = new ArrayList<>();
+        for (Method method : getSelectedTestMethods()) {
+            for (SpecAssertionReader.Assertion assertion : SpecAssertionReader.getAssertions(method)) {
+                if (matches(sectionFilter, assertion.getSection()) && matches(idFilter, assertion.getId())) {
+                    selected.add(method);
+                    break;
+                }
+            }
+        }
+        selectTestMethods(selected);
+    }
+
+    /**
+     * Restricts this suite to the given test methods, e.g. the tests failed in a previous run.
+     *
+     * @param locations the test locations, in the form {@code fully.qualified.TestClass#method}.
+     */
+    void setRerunTests(Collection<String> locations) {
+        List<Method> selected = new ArrayList<>();
+        for (Method method : getSelectedTestMethods()) {
+            if (locations.contains(method.getDeclaringClass().getName() + '#' + method.getName())) {
+                selected.add(method);
+            }
+        }
+        selectTestMethods(selected);
+    }
+
+    /**
+     * Evaluates the tests to be re-executed, i.e. the tests failed or skipped in a previous run.
+     *
+     * @param previousResults the previous results, as read by {@link TCKReporter#readResults(File)}.
+     * @return the test locations, in the form {@code fully.qualified.TestClass#method}, never null.
+     */
+    static List<String> getRerunTests(Map<String, String> previousResults) {
+        List<String> rerunTests = new ArrayList<>();
+        for (Map.Entry<String, String> en : previousResults.entrySet()) {
+            if (!TCKReporter.SUCCESS.equals(en.getValue())) {
+                rerunTests.add(en.getKey());
+            }
+        }
+        return rerunTests;
+    }
+
+    /**
+     * Evaluates if the given value matches the filter, see {@link #setAssertionFilter(String, String)}.
+     *
+     * @param filter the comma separated filter patterns, or null, matching all values.
+     * @param value  the value, e.g. an assertion id.
+     * @return true, if the value is matched by an include pattern, or there are no include patterns, and no exclude
+     * pattern matches.
+     */
+    static boolean matches(String filter, String value) {
+        if (filter == null) {
+            return true;
+        }
+        boolean hasIncludes = false;
+        boolean included = false;
+        for (String pattern : filter.split(",")) {
+            pattern = pattern.trim();
+            if (pattern.startsWith("!")) {
+                if (matchesPattern(pattern.substring(1), value)) {
+                    return false;
+                }
+            } else if (!pattern.isEmpty()) {
+                hasIncludes = true;
+                included = included || matchesPattern(pattern, value);
+            }
+        }
+        return included || !hasIncludes;
+    }
+
+    private static boolean matchesPattern(String pattern, String value) {
+        StringBuilder regex = new StringBuilder();
+        String[] parts = pattern.split("\\*", -1);
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                regex.append(".*");
+            }
+            regex.append(Pattern.quote(parts[i]));
+        }
+        return value != null && Pattern.matches(regex.toString(), value);
+    }
+
+    private static List<Method> getTestMethods(Class<?> testClass) {
+        List<Method> methods = new ArrayList<>();
+        for (Method method : testClass.getMethods()) {
+            if (method.isAnnotationPresent(Test.class)) {
+                methods.add(method);
+            }
+        }
+        Collections.sort(methods, new Comparator<Method>() {
+            @Override
+            public int compare(Method m1, Method m2) {
+                return m1.getName().compareTo(m2.getName());
+            }
+        });
+        return methods;
+    }
+
     /**
      * Main method to start the TCK. Optional arguments are:
      * <ul>
@@ -84,6 +354,34 @@ public final class TCKRunner extends XmlSuite implements Tool {
      *     <li>-Dverbose=true to enable TestNG verbose mode.</li>
      *     <li>-DreportFile=targetFile.txt for defining the TCK result summary report target file
      *     (default: ./target/tck-results.txt).</li>
+     *     <li>-Dparallel=classes|methods to execute the tests not touching global state in parallel
+     *     (default: serial execution).</li>
+     *     <li>-DthreadCount=n for defining the number of threads used in parallel mode
+     *     (default: number of available processors).</li>
+     *     <li>-Dshard=i/n for executing only the i-th of n deterministic partitions of the TCK tests. Use
+     *     {@link TCKReportMerger} to combine the shard reports.</li>
+     *     <li>-Dsections=... and -Dassertions=... for executing only the tests with matching spec assertions,
+     *     e.g. {@code -Dassertions=422-D*,433-*} or {@code -Dsections=4.3.*,!4.3.4}.</li>
+     *     <li>-Drerun=failed for executing only the tests failed or skipped in the previous run, as recorded in the
+     *     status file written next to the report file. The results of all other tests are carried over into the
+     *     new summary.</li>
+     *     <li>-DslowestTests=n for defining the number of slowest tests listed in the summary (default: 10). The
+     *     durations of all tests are written to a CSV file next to the report file.</li>
+     *     <li>-DjsonReportFile=targetFile.jsonl for defining the file the test results are streamed to as JSON
+     *     records (default: next to the report file, e.g. ./target/tck-results.jsonl).</li>
+     *     <li>-DjunitReportFile=targetFile.xml for additionally writing a JUnit XML report.</li>
+     *     <li>-DconsoleLimit=n for defining the maximal number of lines written to the console for the single tests
+     *     (default: 1000, 0 for no limit). The summary is always written.</li>
+     *     <li>-DbootstrapProfile=true for measuring the startup breakdown of the implementation before the tests
+     *     are executed, see {@link TCKBootstrapProfiler}.</li>
+     *     <li>-DallocationProfile=true for measuring the bytes allocated per call of the amount operations for each
+     *     amount class before the tests are executed, see {@link TCKAllocationProfiler}. The table is also written
+     *     as CSV file next to the report file.</li>
+     *     <li>-DstressTests=true for executing the concurrency stress tests of section 3.4, which are not part of
+     *     the suite by default.</li>
+     *     <li>-DvirtualThreads=true for executing the concurrency stress tests on virtual threads (requires JDK 21 or
+     *     later, otherwise platform threads are used) and reporting the carrier threads pinned by the implementation,
+     *     see {@link VirtualThreadSupport}.</li>
      * </ul>
      * @param in input stream
      * @param out output stream
@@ -95,7 +393,61 @@ public final class TCKRunner extends XmlSuite implements Tool {
     			String... args) {
         System.out.println("-- JSR 354 TCK started --");
         List<XmlSuite> suites = new ArrayList<>();
-        suites.add(new TCKRunner());
+        String reportFile = System.getProperty("reportFile");
+        File file = null;
+        if(reportFile!=null) {
+            file = new File(reportFile);
+        }
+        else{
+            file = new File("./target/tck-results.txt");
+        }
+        TCKRunner suite = new TCKRunner();
+        Map<String, String> previousResults = null;
+        String rerun = System.getProperty("rerun");
+        if (rerun != null) {
+            if (!"failed".equalsIgnoreCase(rerun)) {
+                throw new IllegalArgumentException("Unsupported rerun mode: " + rerun + ", use 'failed'.");
+            }
+            previousResults = TCKReporter.readResults(TCKReporter.getStatusFile(file));
+            List<String> rerunTests = getRerunTests(previousResults);
+            suite.setRerunTests(rerunTests);
+            System.out.println("Re-executing " + rerunTests.size() + " failed or skipped tests ...");
+        }
+        String sections = System.getProperty("sections");
+        String assertions = System.getProperty("assertions");
+        if (sections != null || assertions != null) {
+            suite.setAssertionFilter(sections, assertions);
+        }
+        String shard = System.getProperty("shard");
+        if (shard != null) {
+            String[] parts = shard.split("/");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid shard, expected i/n: " + shard);
+            }
+            suite.setShard(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+            System.out.println("Executing shard " + shard + " ...");
+        }
+        if (VirtualThreadSupport.isEnabled() && !isStressTestsEnabled()) {
+            System.out.println("Virtual threads are only used by the stress tests, enable them with "
+                    + "-DstressTests=true.");
+        } else if (VirtualThreadSupport.isEnabled()) {
+            if (VirtualThreadSupport.isAvailable()) {
+                System.out.println("Executing the stress tests on virtual threads ...");
+            } else {
+                System.out.println("Virtual threads are not available on Java " + System.getProperty("java.version")
+                        + ", executing the stress tests on platform threads ...");
+            }
+        }
+        String parallel = System.getProperty("parallel");
+        if (parallel != null && !"none".equalsIgnoreCase(parallel)) {
+            String threadCount = System.getProperty("threadCount");
+            if (threadCount != null) {
+                suite.setParallelMode(parallel, Integer.parseInt(threadCount));
+            } else {
+                suite.setParallelMode(parallel, Runtime.getRuntime().availableProcessors());
+            }
+        }
+        suites.add(suite);
         TestNG tng = new TestNG();
         tng.setXmlSuites(suites);
         String outDir = System.getProperty("outputDir");
@@ -109,23 +461,77 @@ public final class TCKRunner extends XmlSuite implements Tool {
         if("true".equalsIgnoreCase(verbose)){
             tng.setVerbose(1);
         }
-        String reportFile = System.getProperty("reportFile");
-        File file = null;
-        if(reportFile!=null) {
-            file = new File(reportFile);
+        TCKReporter rep = new TCKReporter(file);
+        if (previousResults != null) {
+            rep.setPreviousResults(previousResults);
         }
-        else{
-            file = new File("./target/tck-results.txt");
+        String consoleLimit = System.getProperty("consoleLimit");
+        if (consoleLimit != null) {
+            rep.setConsoleLimit(Integer.parseInt(consoleLimit));
+        }
+        String slowestTests = System.getProperty("slowestTests");
+        if (slowestTests != null) {
+            rep.setSlowestTestCount(Integer.parseInt(slowestTests));
         }
-        TCKReporter rep = new TCKReporter(file);
         System.out.println("Writing to file " + file.getAbsolutePath() + " ...");
+        if ("true".equalsIgnoreCase(System.getProperty("bootstrapProfile"))) {
+            TCKBootstrapProfiler profiler = new TCKBootstrapProfiler();
+            profiler.run();
+            rep.writeBootstrapProfile(profiler);
+        }
+        if ("true".equalsIgnoreCase(System.getProperty("allocationProfile"))) {
+            TCKAllocationProfiler profiler = new TCKAllocationProfiler();
+            profiler.run();
+            rep.writeAllocationProfile(profiler);
+        }
         tng.addListener(rep);
-        tng.run();
-        rep.writeSummary();
+        TCKJsonReporter jsonRep = createJsonReporter(file);
+        if (jsonRep != null) {
+            tng.addListener(jsonRep);
+        }
+        try {
+            tng.run();
+        } finally {
+            rep.writeSummary();
+            if (jsonRep != null) {
+                try {
+                    jsonRep.close();
+                } catch (IOException e) {
+                    System.err.println("WARNING: JSON/JUnit report incomplete: " + e);
+                }
+            }
+        }
         System.out.println("-- JSR 354 TCK  finished --");
         return 0;
     }
     
+    /**
+     * Creates the reporter writing the optional JSON Lines and JUnit XML reports. Failures are reported as warning
+     * only, so they do not abort the TCK run.
+     *
+     * @return the reporter, or null, if the JSON file cannot be created.
+     */
+    private static TCKJsonReporter createJsonReporter(File reportFile) {
+        String jsonReportFile = System.getProperty("jsonReportFile");
+        File jsonFile;
+        if (jsonReportFile != null) {
+            jsonFile = new File(jsonReportFile);
+        } else {
+            jsonFile = TCKReporter.getReportFile(reportFile, ".jsonl");
+        }
+        String junitReportFile = System.getProperty("junitReportFile");
+        File junitFile = null;
+        if (junitReportFile != null) {
+            junitFile = new File(junitReportFile);
+        }
+        try {
+            return new TCKJsonReporter(jsonFile, junitFile);
+        } catch (IOException e) {
+            System.err.println("WARNING: JSON report " + jsonFile.getAbsolutePath() + " cannot be written: " + e);
+            return null;
+        }
+    }
+
     @Override
     public final Set<SourceVersion> getSourceVersions() {
 	return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
@@ -139,22 +545,59 @@ public final class TCKRunner extends XmlSuite implements Tool {
     }
     
     /**
-     * Reporter implementation.
+     * Reporter implementation. All callbacks are synchronized, since in parallel mode they are called concurrently.
      */
     public static final class TCKReporter extends TestListenerAdapter {
+        static final String SUCCESS = "SUCCESS";
+        static final String FAILED = "FAILED";
+        static final String SKIPPED = "SKIPPED";
+        private static final long[] HISTOGRAM_LIMITS = {1L, 10L, 100L, 1000L, 10000L};
+        private static final int DEFAULT_CONSOLE_LIMIT = 1000;
+
         private int count = 0;
         private int skipped = 0;
         private int failed = 0;
         private int success = 0;
 
-        private StringWriter internalBuffer = new StringWriter(3000);
         private FileWriter w;
+        private final Map<String, String> stackTraces = new HashMap<>();
+        private int consoleLimit = DEFAULT_CONSOLE_LIMIT;
+        private int consoleLines = 0;
+        private boolean limitNoticePrinted;
+        private boolean summary;
+        private final File statusFile;
+        private final Map<String, String> results = new LinkedHashMap<>();
+        private Map<String, String> previousResults = Collections.emptyMap();
+        private final File timingsFile;
+        private final File allocationsFile;
+        private final List<TestTiming> timings = new ArrayList<>();
+        private int slowestTestCount = 10;
+
+        /**
+         * Duration of a single test execution.
+         */
+        private static final class TestTiming {
+            private final String testClass;
+            private final String method;
+            private final String result;
+            private final long millis;
+
+            private TestTiming(String testClass, String method, String result, long millis) {
+                this.testClass = testClass;
+                this.method = method;
+                this.result = result;
+                this.millis = millis;
+            }
+        }
 
         /**
          * Constructor of the TCK reporter, writing to the given file.
          * @param file the target file, not null.
          */
         public TCKReporter(File file) {
+            statusFile = getStatusFile(file);
+            timingsFile = getReportFile(file, "-timings.csv");
+            allocationsFile = getReportFile(file, "-allocations.csv");
             try {
                 if (!file.exists()) {
                     file.createNewFile();
@@ -166,10 +609,11 @@ public final class TCKRunner extends XmlSuite implements Tool {
                 w.write("Executed on " + new java.util.Date() + "\n\n");
 
                 // System.out:
-                internalBuffer.write("********************************************************************************\n");
-                internalBuffer.write("**** JSR 354 - Money & Currency, Technical Compatibility Kit, version 1.1.\n");
-                internalBuffer.write("********************************************************************************\n\n");
-                internalBuffer.write("Executed on " + new java.util.Date() + "\n\n");
+                System.out.println();
+                System.out.println("********************************************************************************");
+                System.out.println("**** JSR 354 - Money & Currency, Technical Compatibility Kit, version 1.1.");
+                System.out.println("********************************************************************************\n");
+                System.out.println("Executed on " + new java.util.Date() + "\n");
             } catch (IOException e) {
                 e.printStackTrace();
                 System.exit(-1);
@@ -177,44 +621,48 @@ public final class TCKRunner extends XmlSuite implements Tool {
         }
 
         @Override
-        public void onTestFailure(ITestResult tr) {
+        public synchronized void onTestFailure(ITestResult tr) {
             failed++;
             count++;
+            record(tr, FAILED);
             String location = tr.getTestClass().getRealClass().getSimpleName() + '#' + tr.getMethod().getMethodName();
             try {
                 Method realTestMethod = tr.getMethod().getConstructorOrMethod().getMethod();
                 Test testAnnot = realTestMethod.getAnnotation(Test.class);
+                String text;
                 if (!testAnnot.description().isEmpty()) {
-                    if (tr.getThrowable() != null) {
-                        StringWriter sw = new StringWriter();
-                        PrintWriter w = new PrintWriter(sw);
-                        tr.getThrowable().printStackTrace(w);
-                        w.flush();
-                        log("[FAILED]  " + testAnnot.description() + "(" + location + "):\n" + sw.toString());
-                    } else {
-                        log("[FAILED]  " + testAnnot.description() + "(" + location + ")");
-                    }
+                    text = "[FAILED]  " + testAnnot.description() + "(" + location + ")";
                 } else {
-
-                    if (tr.getThrowable() != null) {
-                        StringWriter sw = new StringWriter();
-                        PrintWriter w = new PrintWriter(sw);
-                        tr.getThrowable().printStackTrace(w);
-                        w.flush();
-                        log("[FAILED]  " + location + ":\n" + sw.toString());
+                    text = "[FAILED]  " + location;
+                }
+                if (tr.getThrowable() != null) {
+                    StringWriter sw = new StringWriter();
+                    PrintWriter w = new PrintWriter(sw);
+                    tr.getThrowable().printStackTrace(w);
+                    w.flush();
+                    write(text + ":\n" + sw.toString());
+                    String fingerprint = getFingerprint(tr.getThrowable(), realTestMethod);
+                    String firstLocation = stackTraces.get(fingerprint);
+                    if (firstLocation == null) {
+                        stackTraces.put(fingerprint, location);
+                        console(text + ": [" + fingerprint + "]\n" + sw.toString());
                     } else {
-                        log("[FAILED]  " + location);
+                        console(text + ": [" + fingerprint + "] same stack trace as " + firstLocation);
                     }
+                } else {
+                    log(text);
                 }
+                writeOutput(tr);
             } catch (IOException e) {
                 throw new IllegalStateException("IO Error", e);
             }
         }
 
         @Override
-        public void onTestSkipped(ITestResult tr) {
+        public synchronized void onTestSkipped(ITestResult tr) {
             skipped++;
             count++;
+            record(tr, SKIPPED);
             String location = tr.getTestClass().getRealClass().getSimpleName() + '#' + tr.getMethod().getMethodName();
             try {
                 Method realTestMethod = tr.getMethod().getConstructorOrMethod().getMethod();
@@ -224,15 +672,17 @@ public final class TCKRunner extends XmlSuite implements Tool {
                 } else {
                     log("[SKIPPED] " + location);
                 }
+                writeOutput(tr);
             } catch (IOException e) {
                 throw new IllegalStateException("IO Error", e);
             }
         }
 
         @Override
-        public void onTestSuccess(ITestResult tr) {
+        public synchronized void onTestSuccess(ITestResult tr) {
             success++;
             count++;
+            record(tr, SUCCESS);
             String location = tr.getTestClass().getRealClass().getSimpleName() + '#' + tr.getMethod().getMethodName();
             try {
                 Method realTestMethod = tr.getMethod().getConstructorOrMethod().getMethod();
@@ -242,31 +692,319 @@ public final class TCKRunner extends XmlSuite implements Tool {
                 } else {
                     log("[SUCCESS] " + location);
                 }
+                writeOutput(tr);
+            } catch (IOException e) {
+                throw new IllegalStateException("IO Error", e);
+            }
+        }
+
+        /**
+         * Sets the results of a previous run, which are carried over into the summary for all tests not executed
+         * in this run.
+         * @param previousResults the previous results, as read by {@link #readResults(File)}.
+         */
+        public synchronized void setPreviousResults(Map<String, String> previousResults) {
+            this.previousResults = previousResults;
+        }
+
+        /**
+         * Get the machine readable status file written next to the given report file.
+         * @param reportFile the report file, not null.
+         * @return the status file, e.g. {@code tck-results.status} for {@code tck-results.txt}.
+         */
+        public static File getStatusFile(File reportFile) {
+            return getReportFile(reportFile, ".status");
+        }
+
+        /**
+         * Get an additional report file written next to the given report file.
+         * @param reportFile the report file, not null.
+         * @param suffix the suffix replacing the report file's extension, e.g. {@code -timings.csv}.
+         * @return the additional report file.
+         */
+        static File getReportFile(File reportFile, String suffix) {
+            String name = reportFile.getName();
+            int index = name.lastIndexOf('.');
+            if (index > 0) {
+                name = name.substring(0, index);
+            }
+            return new File(reportFile.getAbsoluteFile().getParentFile(), name + suffix);
+        }
+
+        /**
+         * Sets the number of slowest tests listed in the summary.
+         * @param slowestTestCount the number of tests, 0 disables the listing.
+         */
+        public synchronized void setSlowestTestCount(int slowestTestCount) {
+            this.slowestTestCount = slowestTestCount;
+        }
+
+        /**
+         * Reads the test results from a status file. Each line contains the result and the test location,
+         * separated by a tab, e.g. {@code FAILED\torg.javamoney.tck.tests.ModellingCurrenciesTest#testISOCodes}.
+         * @param statusFile the status file, not null.
+         * @return the results read, by test location.
+         */
+        public static Map<String, String> readResults(File statusFile) {
+            Map<String, String> results = new LinkedHashMap<>();
+            try (BufferedReader reader = new BufferedReader(new FileReader(statusFile))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int index = line.indexOf('\t');
+                    if (index > 0) {
+                        results.put(line.substring(index + 1), line.substring(0, index));
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot read TCK results from " + statusFile.getAbsolutePath(), e);
+            }
+            return results;
+        }
+
+        private void record(ITestResult tr, String result) {
+            String testClass = tr.getTestClass().getRealClass().getName();
+            results.put(testClass + '#' + tr.getMethod().getMethodName(), result);
+            timings.add(new TestTiming(testClass, tr.getMethod().getMethodName(), result,
+                    Math.max(0L, tr.getEndMillis() - tr.getStartMillis())));
+        }
+
+        /**
+         * Writes the output logged by the test using {@link Reporter}, e.g. the throughput measured by the stress
+         * tests.
+         */
+        private void writeOutput(ITestResult tr) throws IOException {
+            for (String line : Reporter.getOutput(tr)) {
+                log("    " + line);
+            }
+        }
+
+        private void writeTimings() throws IOException {
+            List<TestTiming> sorted = new ArrayList<>(timings);
+            Collections.sort(sorted, new Comparator<TestTiming>() {
+                @Override
+                public int compare(TestTiming t1, TestTiming t2) {
+                    return Long.compare(t2.millis, t1.millis);
+                }
+            });
+            if (slowestTestCount > 0 && !sorted.isEmpty()) {
+                log("\nSLOWEST TESTS");
+                for (TestTiming timing : sorted.subList(0, Math.min(slowestTestCount, sorted.size()))) {
+                    log(String.format("%10d ms  %s#%s", timing.millis,
+                            timing.testClass.substring(timing.testClass.lastIndexOf('.') + 1), timing.method));
+                }
+            }
+            Map<String, long[]> classTotals = new LinkedHashMap<>();
+            long[] histogram = new long[HISTOGRAM_LIMITS.length + 1];
+            for (TestTiming timing : timings) {
+                String testClass = timing.testClass.substring(timing.testClass.lastIndexOf('.') + 1);
+                long[] total = classTotals.get(testClass);
+                if (total == null) {
+                    total = new long[2];
+                    classTotals.put(testClass, total);
+                }
+                total[0]++;
+                total[1] += timing.millis;
+                int bucket = 0;
+                while (bucket < HISTOGRAM_LIMITS.length && timing.millis >= HISTOGRAM_LIMITS[bucket]) {
+                    bucket++;
+                }
+                histogram[bucket]++;
+            }
+            if (!classTotals.isEmpty()) {
+                log("\nDURATION PER TEST CLASS");
+                for (Map.Entry<String, long[]> en : classTotals.entrySet()) {
+                    log(String.format("%10d ms  %s (%d tests)", en.getValue()[1], en.getKey(), en.getValue()[0]));
+                }
+                log("\nTEST DURATION HISTOGRAM");
+                for (int i = 0; i < histogram.length; i++) {
+                    String range;
+                    if (i == 0) {
+                        range = "< " + HISTOGRAM_LIMITS[0] + " ms";
+                    } else if (i == HISTOGRAM_LIMITS.length) {
+                        range = ">= " + HISTOGRAM_LIMITS[i - 1] + " ms";
+                    } else {
+                        range = HISTOGRAM_LIMITS[i - 1] + " - " + HISTOGRAM_LIMITS[i] + " ms";
+                    }
+                    log(String.format("%16s : %d", range, histogram[i]));
+                }
+            }
+            try (FileWriter timingsWriter = new FileWriter(timingsFile)) {
+                timingsWriter.write("class,method,result,durationMillis\n");
+                for (TestTiming timing : sorted) {
+                    timingsWriter.write(timing.testClass + ',' + timing.method + ',' + timing.result + ','
+                            + timing.millis + '\n');
+                }
+            }
+        }
+
+        private void writeResults(Map<String, String> allResults) throws IOException {
+            try (FileWriter statusWriter = new FileWriter(statusFile)) {
+                for (Map.Entry<String, String> en : allResults.entrySet()) {
+                    statusWriter.write(en.getValue() + '\t' + en.getKey() + '\n');
+                }
+            }
+        }
+
+        /**
+         * Sets the maximal number of lines written to the console for the single tests, the summary is always
+         * written.
+         * @param consoleLimit the maximal number of lines, 0 for no limit.
+         */
+        public synchronized void setConsoleLimit(int consoleLimit) {
+            this.consoleLimit = consoleLimit;
+        }
+
+        /**
+         * Evaluates a fingerprint of the given failure, based on the exception, its message and the stack frames
+         * above the test method, so identical failures raised in the implementation under test can be detected.
+         */
+        private static String getFingerprint(Throwable throwable, Method testMethod) {
+            StringBuilder b = new StringBuilder(String.valueOf(throwable));
+            for (StackTraceElement frame : throwable.getStackTrace()) {
+                if (frame.getClassName().equals(testMethod.getDeclaringClass().getName())) {
+                    break;
+                }
+                b.append('\n').append(frame);
+            }
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-1")
+                        .digest(b.toString().getBytes(StandardCharsets.UTF_8));
+                StringBuilder hex = new StringBuilder();
+                for (int i = 0; i < 6; i++) {
+                    hex.append(String.format("%02x", digest[i]));
+                }
+                return hex.toString();
+            } catch (NoSuchAlgorithmException e) {
+                return Integer.toHexString(b.toString().hashCode());
+            }
+        }
+
+        /**
+         * Writes the startup breakdown measured by the given profiler.
+         * @param profiler the profiler, already run, not null.
+         */
+        public synchronized void writeBootstrapProfile(TCKBootstrapProfiler profiler) {
+            try {
+                log("BOOTSTRAP PROFILE");
+                for (TCKBootstrapProfiler.Phase phase : profiler.getPhases()) {
+                    String text = String.format(Locale.ENGLISH, phase.isNested() ? "%14.1f ms    %s" : "%10.1f ms  %s",
+                            phase.getNanos() / 1000000.0, phase.getName());
+                    if (phase.getDetail() != null) {
+                        text += " (" + phase.getDetail() + ')';
+                    }
+                    log(text);
+                }
+                log(String.format(Locale.ENGLISH, "%10.1f ms  TOTAL", profiler.getTotalNanos() / 1000000.0) + '\n');
+            } catch (IOException e) {
+                throw new IllegalStateException("IO Error", e);
+            }
+        }
+
+        /**
+         * Writes the bytes allocated per call measured by the given profiler as table of operation &times; amount
+         * class, and as CSV file next to the report file.
+         * @param profiler the profiler, already run, not null.
+         */
+        public synchronized void writeAllocationProfile(TCKAllocationProfiler profiler) {
+            try {
+                log("ALLOCATION PROFILE (bytes per call)");
+                StringBuilder header = new StringBuilder(String.format("%-36s", "operation"));
+                for (String amountClass : profiler.getAmountClasses()) {
+                    header.append(String.format("  %14s", amountClass.substring(amountClass.lastIndexOf('.') + 1)));
+                }
+                log(header.toString());
+                try (FileWriter allocationsWriter = new FileWriter(allocationsFile)) {
+                    allocationsWriter.write("class,operation,bytesPerCall\n");
+                    for (String operation : profiler.getOperations()) {
+                        StringBuilder row = new StringBuilder(String.format("%-36s", operation));
+                        for (String amountClass : profiler.getAmountClasses()) {
+                            Long bytes = profiler.getBytesPerCall(amountClass, operation);
+                            String value = bytes == null ? "failed" : bytes < 0 ? "n/a" : String.valueOf(bytes);
+                            row.append(String.format("  %14s", value));
+                            allocationsWriter.write(amountClass + ",\"" + operation + "\"," + value + '\n');
+                        }
+                        log(row.toString());
+                    }
+                }
+                for (Map.Entry<String, String> en : profiler.getFailures().entrySet()) {
+                    log("Failed: " + en.getKey() + ": " + en.getValue());
+                }
+                log("");
             } catch (IOException e) {
                 throw new IllegalStateException("IO Error", e);
             }
         }
 
         private void log(String text) throws IOException {
+            write(text);
+            console(text);
+        }
+
+        private void write(String text) throws IOException {
             w.write(text);
             w.write('\n');
-            internalBuffer.write(text);
-            internalBuffer.write('\n');
         }
 
-        public void writeSummary() {
+        private void console(String text) {
+            if (summary || consoleLimit <= 0 || consoleLines < consoleLimit) {
+                System.out.println(text);
+                for (int i = 0; i < text.length(); i++) {
+                    if (text.charAt(i) == '\n') {
+                        consoleLines++;
+                    }
+                }
+                consoleLines++;
+            } else if (!limitNoticePrinted) {
+                System.out.println("... console output limited to " + consoleLimit
+                        + " lines, see the report file for all results ...");
+                limitNoticePrinted = true;
+            }
+        }
+
+        public synchronized void writeSummary() {
             try {
+                summary = true;
+                Map<String, String> allResults = new LinkedHashMap<>();
+                int carriedOver = 0;
+                for (Map.Entry<String, String> en : previousResults.entrySet()) {
+                    if (!results.containsKey(en.getKey())) {
+                        allResults.put(en.getKey(), en.getValue());
+                        carriedOver++;
+                    }
+                }
+                allResults.putAll(results);
+                int totalSkipped = 0;
+                int totalSuccess = 0;
+                int totalFailed = 0;
+                for (String result : allResults.values()) {
+                    if (SUCCESS.equals(result)) {
+                        totalSuccess++;
+                    } else if (FAILED.equals(result)) {
+                        totalFailed++;
+                    } else {
+                        totalSkipped++;
+                    }
+                }
                 log("\nJSR 354 TCK, version 1.1 Summary"); // FIXME this should not be hardcoded here
                 log("------------------------------------------");
-                log("\nTOTAL TESTS EXECUTED : " + count);
-                log("TOTAL TESTS SKIPPED  : " + skipped);
-                log("TOTAL TESTS SUCCESS  : " + success);
-                log("TOTAL TESTS FAILED   : " + failed);
+                if (carriedOver > 0) {
+                    log("\nTESTS RE-EXECUTED    : " + count + " (skipped: " + skipped + ", success: " + success
+                            + ", failed: " + failed + ')');
+                    log("RESULTS CARRIED OVER : " + carriedOver);
+                }
+                log("\nTOTAL TESTS EXECUTED : " + (count + carriedOver));
+                log("TOTAL TESTS SKIPPED  : " + totalSkipped);
+                log("TOTAL TESTS SUCCESS  : " + totalSuccess);
+                log("TOTAL TESTS FAILED   : " + totalFailed);
+                String warnings = TestUtils.getWarnings();
+                if (!warnings.isEmpty()) {
+                    log("\nRECOMMENDATIONS NOT MET");
+                    log(warnings.trim());
+                }
+                writeTimings();
+                writeResults(allResults);
                 w.flush();
                 w.close();
-                internalBuffer.flush();
-                System.out.println();
-                System.out.println(internalBuffer);
             } catch (IOException e) {
                 throw new IllegalStateException("IO Error", e);
             }
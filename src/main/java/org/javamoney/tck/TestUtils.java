@@ -27,6 +27,7 @@ import javax.money.NumberValue;
 import java.io.ByteArrayOutputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -45,6 +46,11 @@ public final class TestUtils {
      */
     private static final StringBuffer WARNINGS = new StringBuffer();
 
+    /**
+     * Prefix of the system properties overriding the performance budgets.
+     */
+    public static final String BUDGET_PROPERTY_PREFIX = "budget.";
+
     private TestUtils() {
     }
 
@@ -338,6 +344,150 @@ public final class TestUtils {
         }
     }
 
+    /**
+     * Get a performance budget, which can be overridden by a system property {@code budget.<name>}, e.g.
+     * {@code -Dbudget.amountAddBytes=512}. A budget less or equal to zero disables the corresponding check.
+     * @param name the budget name
+     * @param defaultValue the default budget
+     * @return the budget to be used.
+     */
+    public static long getBudget(String name, long defaultValue) {
+        String value = System.getProperty(BUDGET_PROPERTY_PREFIX + name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid budget " + BUDGET_PROPERTY_PREFIX + name + ": " + value, e);
+        }
+    }
+
+    /**
+     * Get the number of bytes allocated by the current thread so far, as provided by the JVM's
+     * {@code com.sun.management.ThreadMXBean}.
+     * @return the bytes allocated, or -1, if not supported by the JVM.
+     */
+    public static long getAllocatedBytes() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) bean;
+                if (allocationBean.isThreadAllocatedMemorySupported()
+                        && allocationBean.isThreadAllocatedMemoryEnabled()) {
+                    return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+                }
+            }
+        } catch (LinkageError | UnsupportedOperationException e) {
+            // not supported by this JVM
+        }
+        return -1L;
+    }
+
+    /**
+     * Measures the bytes allocated per execution of the given action. The action is executed the given number of
+     * times for warming up before being measured.
+     * @param iterations the number of executions
+     * @param action the action to be measured
+     * @return the average number of bytes allocated per execution, or -1, if not supported by the JVM.
+     */
+    public static long measureAllocatedBytes(int iterations, Runnable action) {
+        for (int i = 0; i < iterations; i++) {
+            action.run();
+        }
+        long start = getAllocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            action.run();
+        }
+        long end = getAllocatedBytes();
+        if (start < 0 || end < 0) {
+            return -1L;
+        }
+        return (end - start) / iterations;
+    }
+
+    /**
+     * Measures the time needed per execution of the given action. The action is executed the given number of
+     * times for warming up before being measured.
+     * @param iterations the number of executions
+     * @param action the action to be measured
+     * @return the average time per execution in nanoseconds.
+     */
+    public static long measureNanos(int iterations, Runnable action) {
+        for (int i = 0; i < iterations; i++) {
+            action.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            action.run();
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    /**
+     * Test for the allocations of an operation being within its budget (optional recommendation), writes a warning
+     * if not given.
+     * @param section the section of the spec under test
+     * @param budgetName the budget name, see {@link #getBudget(String, long)}
+     * @param defaultBudget the default budget in bytes per operation
+     * @param operation the operation measured, used for the warning
+     * @param iterations the number of executions measured
+     * @param action the operation to be measured
+     * @return true, if the operation is within its budget, the budget is disabled or allocations cannot be measured.
+     */
+    public static boolean testAllocationBudgetOpt(String section, String budgetName, long defaultBudget,
+                                                  String operation, int iterations, Runnable action) {
+        long budget = getBudget(budgetName, defaultBudget);
+        if (budget <= 0) {
+            return true;
+        }
+        long allocated = measureAllocatedBytes(iterations, action);
+        if (allocated > budget) {
+            WARNINGS.append(section).append(": Recommendation failed: ").append(operation).append(" allocates ")
+                    .append(allocated).append(" bytes per call, budget is ").append(budget).append(" bytes (")
+                    .append(BUDGET_PROPERTY_PREFIX).append(budgetName).append(").\n");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Test for the time needed by an operation being within its budget (optional recommendation), writes a warning
+     * if not given.
+     * @param section the section of the spec under test
+     * @param budgetName the budget name, see {@link #getBudget(String, long)}
+     * @param defaultBudget the default budget in nanoseconds per operation
+     * @param operation the operation measured, used for the warning
+     * @param iterations the number of executions measured
+     * @param action the operation to be measured
+     * @return true, if the operation is within its budget or the budget is disabled.
+     */
+    public static boolean testTimeBudgetOpt(String section, String budgetName, long defaultBudget,
+                                            String operation, int iterations, Runnable action) {
+        long budget = getBudget(budgetName, defaultBudget);
+        if (budget <= 0) {
+            return true;
+        }
+        long nanos = measureNanos(iterations, action);
+        if (nanos > budget) {
+            WARNINGS.append(section).append(": Recommendation failed: ").append(operation).append(" takes ")
+                    .append(nanos).append(" ns per call, budget is ").append(budget).append(" ns (")
+                    .append(BUDGET_PROPERTY_PREFIX).append(budgetName).append(").\n");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes a warning for a failed optional recommendation, which cannot be checked by one of the {@code test*Opt}
+     * methods.
+     * @param section the section of the spec under test
+     * @param recommendation the recommendation failed and its details
+     */
+    public static void addRecommendationWarning(String section, String recommendation) {
+        WARNINGS.append(section).append(": Recommendation failed: ").append(recommendation).append("\n");
+    }
+
     /**
      * Reset all collected WARNINGS.
      */
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck.tests.concurrency;
+
+import org.javamoney.tck.TCKTestSetup;
+import org.jboss.test.audit.annotations.SpecAssertion;
+import org.jboss.test.audit.annotations.SpecVersion;
+import org.testng.AssertJUnit;
+import org.testng.annotations.Test;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryAmountFactory;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Stress tests creating amounts with {@link MonetaryAmountFactory} instances from multiple threads. Amount factories
+ * are mutable builders, so each call of {@link Monetary#getAmountFactory(Class)} is recommended to return a factory
+ * not shared with other callers. Violations do not fail the TCK, they are reported as warnings in the TCK summary.
+ */
+@SpecVersion(spec = "JSR 354", version = "1.1.0")
+public class AmountFactoryStressTest {
+
+    private static final String[] CURRENCIES = {"CHF", "EUR", "USD", "GBP", "JPY", "INR", "CNY", "AUD"};
+
+    /**
+     * Get amount factories from multiple threads, checking they are independent instances.
+     */
+    @SpecAssertion(section = "3.4", id = "34-B3")
+    @Test(description = "3.4 For each amount class, recommend Monetary.getAmountFactory(Class) to return independent "
+            + "factory instances to concurrent callers.")
+    public void testAmountFactoriesAreIndependent() {
+        for (final Class type : TCKTestSetup.getTestConfiguration().getAmountClasses()) {
+            int maxThreads = 1;
+            for (int threads : StressTestSupport.getThreadCounts()) {
+                maxThreads = Math.max(maxThreads, threads);
+            }
+            final AtomicReferenceArray<MonetaryAmountFactory<?>> current = new AtomicReferenceArray<>(maxThreads);
+            StressTestSupport.runAndReportOpt("Section 3.4", "Monetary.getAmountFactory(" + type.getSimpleName()
+                    + ").setCurrency().setNumber().create()", new StressTestSupport.Task() {
+                @Override
+                public void execute(int thread, long iteration) {
+                    MonetaryAmountFactory<?> factory = Monetary.getAmountFactory(type);
+                    current.set(thread, factory);
+                    String currency = CURRENCIES[thread % CURRENCIES.length];
+                    long number = thread * 1000L + iteration % 1000L;
+                    factory.setCurrency(currency).setNumber(number);
+                    for (int i = 0; i < current.length(); i++) {
+                        if (i != thread && current.get(i) == factory) {
+                            AssertJUnit.fail("Section 3.4: Monetary.getAmountFactory(" + type.getName()
+                                    + ") returned the same factory instance to concurrent callers.");
+                        }
+                    }
+                    MonetaryAmount amount = factory.create();
+                    AssertJUnit.assertEquals("Section 3.4: Currency of amount created changed concurrently for "
+                            + type.getName(), currency, amount.getCurrency().getCurrencyCode());
+                    AssertJUnit.assertEquals("Section 3.4: Number of amount created changed concurrently for "
+                            + type.getName(), number, amount.getNumber().longValueExact());
+                    current.compareAndSet(thread, factory, null);
+                }
+            });
+        }
+    }
+
+    /**
+     * Measure the create() throughput with factories reused by each thread.
+     */
+    @SpecAssertion(section = "3.4", id = "34-B3")
+    @Test(description = "3.4 For each amount class, recommend amounts created by factories reused by multiple threads "
+            + "to be correct and measure the create() throughput.")
+    public void testCreateThroughput() {
+        for (final Class type : TCKTestSetup.getTestConfiguration().getAmountClasses()) {
+            final ThreadLocal<MonetaryAmountFactory<?>> factories = new ThreadLocal<>();
+            StressTestSupport.runAndReportOpt("Section 3.4", type.getSimpleName() + " MonetaryAmountFactory.create()",
+                    new StressTestSupport.Task() {
+                        @Override
+                        public void execute(int thread, long iteration) {
+                            MonetaryAmountFactory<?> factory = factories.get();
+                            if (factory == null) {
+                                factory = Monetary.getAmountFactory(type);
+                                factory.setCurrency(CURRENCIES[thread % CURRENCIES.length]);
+                                factories.set(factory);
+                            }
+                            long number = iteration % 100000L;
+                            MonetaryAmount amount = factory.setNumber(number).create();
+                            AssertJUnit.assertEquals("Section 3.4: Invalid amount created for " + type.getName(),
+                                    number, amount.getNumber().longValueExact());
+                        }
+                    });
+        }
+    }
+}
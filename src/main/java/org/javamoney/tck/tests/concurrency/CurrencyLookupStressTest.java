@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck.tests.concurrency;
+
+import org.jboss.test.audit.annotations.SpecAssertion;
+import org.jboss.test.audit.annotations.SpecVersion;
+import org.testng.AssertJUnit;
+import org.testng.annotations.Test;
+
+import javax.money.CurrencyQuery;
+import javax.money.CurrencyQueryBuilder;
+import javax.money.CurrencyUnit;
+import javax.money.Monetary;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Stress tests accessing currencies from multiple threads. The results are compared to the results evaluated
+ * single threaded before. Thread-safety is a recommendation only, so violations do not fail the TCK, they are
+ * reported as warnings in the TCK summary.
+ */
+@SpecVersion(spec = "JSR 354", version = "1.1.0")
+public class CurrencyLookupStressTest {
+
+    /**
+     * Access currencies by code from multiple threads.
+     */
+    @SpecAssertion(section = "3.4", id = "34-B1")
+    @Test(description = "3.4 Recommend Monetary.getCurrency(String) to return consistent results when called from "
+            + "multiple threads.")
+    public void testGetCurrencyByCodeConcurrently() {
+        final List<String> codes = new ArrayList<>();
+        final List<CurrencyUnit> expected = new ArrayList<>();
+        for (Currency currency : Currency.getAvailableCurrencies()) {
+            if (Monetary.isCurrencyAvailable(currency.getCurrencyCode())) {
+                codes.add(currency.getCurrencyCode());
+                expected.add(Monetary.getCurrency(currency.getCurrencyCode()));
+            }
+        }
+        AssertJUnit.assertFalse("Section 3.4: No JDK currencies available.", codes.isEmpty());
+        StressTestSupport.runAndReportOpt("Section 3.4", "Monetary.getCurrency(String)", new StressTestSupport.Task() {
+            @Override
+            public void execute(int thread, long iteration) {
+                int index = (int) ((iteration + thread * 31L) % codes.size());
+                AssertJUnit.assertEquals("Section 3.4: Inconsistent currency for " + codes.get(index),
+                        expected.get(index), Monetary.getCurrency(codes.get(index)));
+            }
+        });
+    }
+
+    /**
+     * Access currencies by locale from multiple threads.
+     */
+    @SpecAssertion(section = "3.4", id = "34-B1")
+    @Test(description = "3.4 Recommend Monetary.getCurrency(Locale) to return consistent results when called from "
+            + "multiple threads.")
+    public void testGetCurrencyByLocaleConcurrently() {
+        final List<Locale> locales = new ArrayList<>();
+        final List<CurrencyUnit> expected = new ArrayList<>();
+        for (Locale locale : Locale.getAvailableLocales()) {
+            if (locale.getCountry().length() != 2) {
+                continue;
+            }
+            try {
+                CurrencyUnit unit = Monetary.getCurrency(locale);
+                if (unit != null) {
+                    locales.add(locale);
+                    expected.add(unit);
+                }
+            } catch (RuntimeException e) {
+                // no unique currency for this locale, not part of this test
+            }
+        }
+        AssertJUnit.assertFalse("Section 3.4: No currencies available for the JDK's locales.", locales.isEmpty());
+        StressTestSupport.runAndReportOpt("Section 3.4", "Monetary.getCurrency(Locale)", new StressTestSupport.Task() {
+            @Override
+            public void execute(int thread, long iteration) {
+                int index = (int) ((iteration + thread * 31L) % locales.size());
+                AssertJUnit.assertEquals("Section 3.4: Inconsistent currency for " + locales.get(index),
+                        expected.get(index), Monetary.getCurrency(locales.get(index)));
+            }
+        });
+    }
+
+    /**
+     * Query currencies from multiple threads.
+     */
+    @SpecAssertion(section = "3.4", id = "34-B1")
+    @Test(description = "3.4 Recommend Monetary.getCurrencies(CurrencyQuery) to return consistent results when called "
+            + "from multiple threads.")
+    public void testGetCurrenciesByQueryConcurrently() {
+        final List<CurrencyQuery> queries = new ArrayList<>();
+        final List<Set<CurrencyUnit>> expected = new ArrayList<>();
+        for (Locale country : new Locale[]{Locale.GERMANY, Locale.US, Locale.JAPAN, new Locale("", "CH"),
+                new Locale("", "IN")}) {
+            CurrencyQuery query = CurrencyQueryBuilder.of().setCountries(country).build();
+            queries.add(query);
+            expected.add(new HashSet<>(Monetary.getCurrencies(query)));
+        }
+        CurrencyQuery codeQuery = CurrencyQueryBuilder.of().setCurrencyCodes("CHF", "EUR", "USD").build();
+        queries.add(codeQuery);
+        expected.add(new HashSet<>(Monetary.getCurrencies(codeQuery)));
+        final int allCurrencies = Monetary.getCurrencies().size();
+        StressTestSupport.runAndReportOpt("Section 3.4", "Monetary.getCurrencies(CurrencyQuery)",
+                new StressTestSupport.Task() {
+                    @Override
+                    public void execute(int thread, long iteration) {
+                        int index = (int) ((iteration + thread) % (queries.size() + 1));
+                        if (index == queries.size()) {
+                            Collection<CurrencyUnit> all = Monetary.getCurrencies();
+                            AssertJUnit.assertEquals("Section 3.4: Inconsistent number of currencies.",
+                                    allCurrencies, all.size());
+                        } else {
+                            AssertJUnit.assertEquals("Section 3.4: Inconsistent currencies for " + queries.get(index),
+                                    expected.get(index), new HashSet<>(Monetary.getCurrencies(queries.get(index))));
+                        }
+                    }
+                });
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck.tests.concurrency;
+
+import org.javamoney.tck.tests.format.FormattingMonetaryAmountsTest;
+import org.jboss.test.audit.annotations.SpecAssertion;
+import org.jboss.test.audit.annotations.SpecVersion;
+import org.testng.AssertJUnit;
+import org.testng.Reporter;
+import org.testng.annotations.Test;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.format.MonetaryAmountFormat;
+import javax.money.format.MonetaryFormats;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stress tests formatting and parsing amounts with one {@link MonetaryAmountFormat} per locale shared by multiple
+ * threads. Formats based on non thread-safe JDK formats, such as {@link java.text.DecimalFormat}, produce corrupted
+ * results when shared, so the results are compared to the results evaluated single threaded before. Sharing formats
+ * is a recommendation only, so violations do not fail the TCK, they are reported as warnings in the TCK summary.
+ */
+@SpecVersion(spec = "JSR 354", version = "1.1.0")
+public class FormatStressTest {
+
+    /**
+     * The amounts formatted, currencies and numbers chosen to involve grouping, fractions and signs.
+     */
+    private static final Object[][] AMOUNTS = {{"CHF", 1234.56}, {"EUR", -0.5}, {"USD", 1000000},
+            {"JPY", 42}, {"GBP", 98765.43}};
+
+    /**
+     * The number of slowest locales reported individually.
+     */
+    private static final int REPORTED_LOCALES = 10;
+
+    /**
+     * A shared format with the results expected for {@link #AMOUNTS}.
+     */
+    private static final class SharedFormat {
+        private final Locale locale;
+        private final MonetaryAmountFormat format;
+        private final String[] formatted = new String[AMOUNTS.length];
+        private final MonetaryAmount[] parsed = new MonetaryAmount[AMOUNTS.length];
+
+        private SharedFormat(Locale locale, MonetaryAmountFormat format) {
+            this.locale = locale;
+            this.format = format;
+        }
+    }
+
+    /**
+     * Format amounts with shared formats from multiple threads and measure the formats per second per locale.
+     */
+    @SpecAssertion(section = "3.4", id = "34-B4")
+    @Test(description = "3.4 For each locale, recommend a MonetaryAmountFormat shared by multiple threads to format "
+            + "amounts as when called single threaded and measure the formats per second.")
+    public void testFormatConcurrently() {
+        final List<SharedFormat> formats = getSharedFormats(false);
+        final MonetaryAmount[] amounts = createAmounts();
+        final AtomicLongArray counts = new AtomicLongArray(formats.size());
+        final AtomicLongArray nanos = new AtomicLongArray(formats.size());
+        StressTestSupport.runAndReportOpt("Section 3.4", "MonetaryAmountFormat.format(MonetaryAmount), shared",
+                new StressTestSupport.Task() {
+                    @Override
+                    public void execute(int thread, long iteration) {
+                        int index = (int) ((iteration + thread * 31L) % formats.size());
+                        int amount = (int) ((iteration / formats.size() + thread) % amounts.length);
+                        SharedFormat shared = formats.get(index);
+                        long start = System.nanoTime();
+                        String result = shared.format.format(amounts[amount]);
+                        nanos.addAndGet(index, System.nanoTime() - start);
+                        counts.incrementAndGet(index);
+                        AssertJUnit.assertEquals("Section 3.4: Shared MonetaryAmountFormat for " + shared.locale
+                                        + " is not thread-safe, formatted " + amounts[amount] + " differently.",
+                                shared.formatted[amount], result);
+                    }
+                });
+        reportPerLocale(formats, counts, nanos);
+    }
+
+    /**
+     * Parse amounts with shared formats from multiple threads.
+     */
+    @SpecAssertion(section = "3.4", id = "34-B4")
+    @Test(description = "3.4 For each locale, recommend a MonetaryAmountFormat shared by multiple threads to parse "
+            + "amounts as when called single threaded.")
+    public void testParseConcurrently() {
+        final List<SharedFormat> formats = getSharedFormats(true);
+        StressTestSupport.runAndReportOpt("Section 3.4", "MonetaryAmountFormat.parse(CharSequence), shared",
+                new StressTestSupport.Task() {
+                    @Override
+                    public void execute(int thread, long iteration) {
+                        int index = (int) ((iteration + thread * 31L) % formats.size());
+                        int amount = (int) ((iteration / formats.size() + thread) % AMOUNTS.length);
+                        SharedFormat shared = formats.get(index);
+                        AssertJUnit.assertEquals("Section 3.4: Shared MonetaryAmountFormat for " + shared.locale
+                                        + " is not thread-safe, parsed '" + shared.formatted[amount]
+                                        + "' differently.",
+                                shared.parsed[amount], shared.format.parse(shared.formatted[amount]));
+                    }
+                });
+    }
+
+    /**
+     * Format and parse amounts with shared formats from multiple threads at the same time.
+     */
+    @SpecAssertion(section = "3.4", id = "34-B4")
+    @Test(description = "3.4 For each locale, recommend a MonetaryAmountFormat shared by multiple threads to format "
+            + "and parse amounts as when called single threaded, if both are called concurrently.")
+    public void testFormatAndParseConcurrently() {
+        final List<SharedFormat> formats = getSharedFormats(true);
+        final MonetaryAmount[] amounts = createAmounts();
+        StressTestSupport.runAndReportOpt("Section 3.4", "MonetaryAmountFormat.format/parse, shared",
+                new StressTestSupport.Task() {
+                    @Override
+                    public void execute(int thread, long iteration) {
+                        int index = (int) ((iteration + thread * 31L) % formats.size());
+                        int amount = (int) ((iteration / formats.size() + thread) % AMOUNTS.length);
+                        SharedFormat shared = formats.get(index);
+                        if (thread % 2 == 0) {
+                            AssertJUnit.assertEquals("Section 3.4: Shared MonetaryAmountFormat for "
+                                            + shared.locale + " is not thread-safe, formatted " + amounts[amount]
+                                            + " differently.",
+                                    shared.formatted[amount], shared.format.format(amounts[amount]));
+                        } else {
+                            AssertJUnit.assertEquals("Section 3.4: Shared MonetaryAmountFormat for "
+                                            + shared.locale + " is not thread-safe, parsed '"
+                                            + shared.formatted[amount] + "' differently.",
+                                    shared.parsed[amount], shared.format.parse(shared.formatted[amount]));
+                        }
+                    }
+                });
+    }
+
+    private static MonetaryAmount[] createAmounts() {
+        MonetaryAmount[] amounts = new MonetaryAmount[AMOUNTS.length];
+        for (int i = 0; i < AMOUNTS.length; i++) {
+            amounts[i] = Monetary.getDefaultAmountFactory().setCurrency((String) AMOUNTS[i][0])
+                    .setNumber((Number) AMOUNTS[i][1]).create();
+        }
+        return amounts;
+    }
+
+    /**
+     * Evaluates the shared formats and their results single threaded.
+     *
+     * @param parse if true, only formats are returned, which parse all amounts formatted back to an amount equal
+     *              to the amount formatted, skipping the languages skipped by
+     *              {@link FormattingMonetaryAmountsTest}. The amounts parsed single threaded are recorded as
+     *              expected results of the concurrent parse calls.
+     * @return the shared formats, never empty.
+     */
+    private static List<SharedFormat> getSharedFormats(boolean parse) {
+        MonetaryAmount[] amounts = createAmounts();
+        List<SharedFormat> formats = new ArrayList<>();
+        for (Locale locale : MonetaryFormats.getAvailableLocales()) {
+            if (parse && FormattingMonetaryAmountsTest.SKIPPED_LANGUAGES.contains(locale.getLanguage())) {
+                continue;
+            }
+            SharedFormat shared;
+            try {
+                shared = new SharedFormat(locale, MonetaryFormats.getAmountFormat(locale));
+                for (int i = 0; i < amounts.length; i++) {
+                    shared.formatted[i] = shared.format.format(amounts[i]);
+                    if (parse) {
+                        shared.parsed[i] = shared.format.parse(shared.formatted[i]);
+                    }
+                }
+            } catch (RuntimeException e) {
+                // not supported single threaded, covered by the formatting tests
+                continue;
+            }
+            if (!parse || isRoundTrip(amounts, shared)) {
+                formats.add(shared);
+            }
+        }
+        AssertJUnit.assertFalse("Section 3.4: No MonetaryAmountFormat available for stress testing.",
+                formats.isEmpty());
+        return formats;
+    }
+
+    /**
+     * Checks the amounts parsed single threaded are equal to the amounts formatted.
+     */
+    private static boolean isRoundTrip(MonetaryAmount[] amounts, SharedFormat shared) {
+        for (int i = 0; i < amounts.length; i++) {
+            try {
+                if (!amounts[i].getCurrency().equals(shared.parsed[i].getCurrency())
+                        || !amounts[i].isEqualTo(shared.parsed[i])) {
+                    return false;
+                }
+            } catch (RuntimeException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reports the formats per second of a single thread per locale using {@link Reporter}: the slowest locales
+     * and a summary of the others, so the report stays readable.
+     */
+    private static void reportPerLocale(List<SharedFormat> formats, final AtomicLongArray counts,
+                                        final AtomicLongArray nanos) {
+        List<Integer> indexes = new ArrayList<>(formats.size());
+        for (int i = 0; i < formats.size(); i++) {
+            if (counts.get(i) > 0 && nanos.get(i) > 0) {
+                indexes.add(i);
+            }
+        }
+        Collections.sort(indexes, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer i1, Integer i2) {
+                return Double.compare(throughput(counts, nanos, i1), throughput(counts, nanos, i2));
+            }
+        });
+        Reporter.log("MonetaryAmountFormat.format(MonetaryAmount) per locale, slowest first:");
+        for (int index : indexes.subList(0, Math.min(REPORTED_LOCALES, indexes.size()))) {
+            Reporter.log(String.format(Locale.ENGLISH, "%,14.0f formats/s  %s", throughput(counts, nanos, index),
+                    formats.get(index).locale));
+        }
+        if (indexes.size() > REPORTED_LOCALES) {
+            int median = indexes.get(indexes.size() / 2);
+            int fastest = indexes.get(indexes.size() - 1);
+            Reporter.log(String.format(Locale.ENGLISH, "%14s %d more locales, median %,.0f formats/s (%s), "
+                            + "fastest %,.0f formats/s (%s)", "...", indexes.size() - REPORTED_LOCALES,
+                    throughput(counts, nanos, median), formats.get(median).locale,
+                    throughput(counts, nanos, fastest), formats.get(fastest).locale));
+        }
+    }
+
+    private static double throughput(AtomicLongArray counts, AtomicLongArray nanos, int index) {
+        return counts.get(index) * 1000000000.0 / nanos.get(index);
+    }
+}
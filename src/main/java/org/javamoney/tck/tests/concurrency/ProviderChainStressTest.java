@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck.tests.concurrency;
+
+import org.jboss.test.audit.annotations.SpecAssertion;
+import org.jboss.test.audit.annotations.SpecVersion;
+import org.testng.AssertJUnit;
+import org.testng.annotations.Test;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.convert.CurrencyConversion;
+import javax.money.convert.ExchangeRate;
+import javax.money.convert.ExchangeRateProvider;
+import javax.money.convert.MonetaryConversions;
+import java.util.Arrays;
+
+/**
+ * Stress tests evaluating exchange rates and converting amounts through provider chains from multiple threads,
+ * using the TCK's rate providers with the chains of {@link org.javamoney.tck.tests.conversion.ProviderChainsTest},
+ * so the results are deterministic. Thread-safety is a recommendation only, so violations do not fail the TCK,
+ * they are reported as warnings in the TCK summary.
+ */
+@SpecVersion(spec = "JSR 354", version = "1.1.0")
+public class ProviderChainStressTest {
+
+    /**
+     * A rate lookup through a provider chain with the expected factor.
+     */
+    private static final class ChainLookup {
+        private final String[] chain;
+        private final String base;
+        private final String term;
+        private final double factor;
+
+        private ChainLookup(String base, String term, double factor, String... chain) {
+            this.chain = chain;
+            this.base = base;
+            this.term = term;
+            this.factor = factor;
+        }
+
+        private void verify(ExchangeRate rate) {
+            AssertJUnit.assertNotNull("Section 3.4: No rate for " + base + '/' + term + " from chain "
+                    + Arrays.toString(chain), rate);
+            AssertJUnit.assertEquals("Section 3.4: Non deterministic rate for " + base + '/' + term + " from chain "
+                    + Arrays.toString(chain), factor, rate.getFactor().doubleValue(), 0.0);
+        }
+    }
+
+    private static final ChainLookup[] LOOKUPS = {
+            new ChainLookup("CHF", "EUR", 1, "TestRateProvider1", "TestRateProvider2", "TestRateProvider3"),
+            new ChainLookup("EUR", "USD", 2, "TestRateProvider1", "TestRateProvider2"),
+            new ChainLookup("USD", "INR", 3, "TestRateProvider3"),
+            new ChainLookup("EUR", "USD", 2, "TestRateProvider2", "TestRateProvider1", "TestRateProvider3"),
+            new ChainLookup("USD", "INR", 3, "TestRateProvider1", "TestRateProvider3", "TestRateProvider2"),
+            new ChainLookup("INR", "GBP", 0.2, "TestRateProvider3", "TestRateProvider2", "TestRateProvider1",
+                    "TestRateProvider02"),
+            new ChainLookup("CHF", "EUR", 1, "TestRateProvider1", "TestRateProvider1", "TestRateProvider1")};
+
+    /**
+     * Resolve the provider chains and evaluate the rates from multiple threads.
+     */
+    @SpecAssertion(section = "3.4", id = "34-B2")
+    @Test(description = "3.4 Recommend resolving provider chains with MonetaryConversions.getExchangeRateProvider("
+            + "String...) and evaluating rates to return deterministic results when called from multiple threads.")
+    public void testResolveChainAndGetRateConcurrently() {
+        StressTestSupport.runAndReportOpt("Section 3.4", "MonetaryConversions.getExchangeRateProvider(String...)"
+                + ".getExchangeRate(String, String)", new StressTestSupport.Task() {
+            @Override
+            public void execute(int thread, long iteration) {
+                ChainLookup lookup = LOOKUPS[(int) ((iteration + thread) % LOOKUPS.length)];
+                ExchangeRateProvider provider = MonetaryConversions.getExchangeRateProvider(lookup.chain);
+                lookup.verify(provider.getExchangeRate(lookup.base, lookup.term));
+            }
+        });
+    }
+
+    /**
+     * Evaluate the rates from provider chains shared by multiple threads.
+     */
+    @SpecAssertion(section = "3.4", id = "34-B2")
+    @Test(description = "3.4 Recommend evaluating rates from shared provider chains to return deterministic results "
+            + "when called from multiple threads.")
+    public void testSharedChainGetRateConcurrently() {
+        final ExchangeRateProvider[] providers = new ExchangeRateProvider[LOOKUPS.length];
+        for (int i = 0; i < LOOKUPS.length; i++) {
+            providers[i] = MonetaryConversions.getExchangeRateProvider(LOOKUPS[i].chain);
+            LOOKUPS[i].verify(providers[i].getExchangeRate(LOOKUPS[i].base, LOOKUPS[i].term));
+        }
+        StressTestSupport.runAndReportOpt("Section 3.4", "ExchangeRateProvider.getExchangeRate(String, String), shared "
+                + "chains", new StressTestSupport.Task() {
+            @Override
+            public void execute(int thread, long iteration) {
+                int index = (int) ((iteration + thread) % LOOKUPS.length);
+                LOOKUPS[index].verify(providers[index].getExchangeRate(LOOKUPS[index].base, LOOKUPS[index].term));
+            }
+        });
+    }
+
+    /**
+     * Convert amounts using conversions shared by multiple threads.
+     */
+    @SpecAssertion(section = "3.4", id = "34-B2")
+    @Test(description = "3.4 Recommend converting amounts with CurrencyConversion instances of provider chains, shared "
+            + "by multiple threads, to return deterministic results.")
+    public void testSharedConversionConcurrently() {
+        final CurrencyConversion[] conversions = new CurrencyConversion[LOOKUPS.length];
+        final MonetaryAmount[] amounts = new MonetaryAmount[LOOKUPS.length];
+        for (int i = 0; i < LOOKUPS.length; i++) {
+            conversions[i] = MonetaryConversions.getConversion(LOOKUPS[i].term, LOOKUPS[i].chain);
+            amounts[i] = Monetary.getDefaultAmountFactory().setCurrency(LOOKUPS[i].base).setNumber(10).create();
+        }
+        StressTestSupport.runAndReportOpt("Section 3.4", "MonetaryAmount.with(CurrencyConversion), shared conversions",
+                new StressTestSupport.Task() {
+                    @Override
+                    public void execute(int thread, long iteration) {
+                        int index = (int) ((iteration + thread) % LOOKUPS.length);
+                        ChainLookup lookup = LOOKUPS[index];
+                        MonetaryAmount result = amounts[index].with(conversions[index]);
+                        AssertJUnit.assertEquals("Section 3.4: Non deterministic conversion " + lookup.base + '/'
+                                        + lookup.term + " from chain " + Arrays.toString(lookup.chain),
+                                lookup.term, result.getCurrency().getCurrencyCode());
+                        AssertJUnit.assertEquals("Section 3.4: Non deterministic conversion " + lookup.base + '/'
+                                        + lookup.term + " from chain " + Arrays.toString(lookup.chain),
+                                10 * lookup.factor, result.getNumber().doubleValue(), 1.0e-9);
+                    }
+                });
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck.tests.concurrency;
+
+import org.jboss.test.audit.annotations.SpecAssertion;
+import org.jboss.test.audit.annotations.SpecVersion;
+import org.testng.AssertJUnit;
+import org.testng.Reporter;
+import org.testng.annotations.Test;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+import javax.money.MonetaryException;
+import javax.money.MonetaryRounding;
+import javax.money.RoundingQueryBuilder;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Stress tests resolving roundings from multiple threads, including the named and cash roundings of the TCK's
+ * {@code TestRoundingProvider}. The roundings resolved are applied and the results compared to the results evaluated
+ * single threaded before. Beside the throughput the average latency per lookup and whether repeated lookups return
+ * cached {@link MonetaryRounding} instances are reported. Thread-safety is a recommendation only, so violations do
+ * not fail the TCK, they are reported as warnings in the TCK summary.
+ */
+@SpecVersion(spec = "JSR 354", version = "1.1.0")
+public class RoundingLookupStressTest {
+
+    private static final BigDecimal NUMBER = new BigDecimal("12.3456789");
+
+    /**
+     * A rounding lookup with the amount rounded and the result expected.
+     */
+    private abstract static class RoundingLookup {
+        private final String name;
+        private MonetaryAmount amount;
+        private MonetaryAmount expected;
+        private MonetaryRounding first;
+
+        private RoundingLookup(String name) {
+            this.name = name;
+        }
+
+        abstract MonetaryRounding lookup();
+
+        /**
+         * Evaluates the expected result single threaded.
+         *
+         * @return true, if the rounding is available.
+         */
+        private boolean init(String currency) {
+            try {
+                amount = Monetary.getDefaultAmountFactory().setCurrency(currency).setNumber(NUMBER).create();
+                first = lookup();
+                expected = amount.with(first);
+                return first != null;
+            } catch (MonetaryException e) {
+                // rounding not provided by the implementation, not part of this test
+                return false;
+            }
+        }
+
+        private void verify(MonetaryRounding rounding) {
+            AssertJUnit.assertNotNull("Section 3.4: No rounding returned for " + name, rounding);
+            AssertJUnit.assertEquals("Section 3.4: Inconsistent rounding returned for " + name, expected,
+                    amount.with(rounding));
+        }
+    }
+
+    /**
+     * Resolve roundings from multiple threads and report the latency and caching per lookup.
+     */
+    @SpecAssertion(section = "3.4", id = "34-B5")
+    @Test(description = "3.4 Recommend Monetary.getRounding(CurrencyUnit), getRounding(RoundingQuery) and "
+            + "getRounding(String) to return consistent roundings, including cash roundings with timestamps, when "
+            + "called from multiple threads.")
+    public void testGetRoundingConcurrently() {
+        final List<RoundingLookup> lookups = getLookups();
+        final AtomicLongArray counts = new AtomicLongArray(lookups.size());
+        final AtomicLongArray nanos = new AtomicLongArray(lookups.size());
+        final AtomicLongArray cached = new AtomicLongArray(lookups.size());
+        StressTestSupport.runAndReportOpt("Section 3.4", "Monetary.getRounding(...)", new StressTestSupport.Task() {
+            @Override
+            public void execute(int thread, long iteration) {
+                int index = (int) ((iteration + thread) % lookups.size());
+                RoundingLookup lookup = lookups.get(index);
+                long start = System.nanoTime();
+                MonetaryRounding rounding = lookup.lookup();
+                nanos.addAndGet(index, System.nanoTime() - start);
+                counts.incrementAndGet(index);
+                if (rounding == lookup.first) {
+                    cached.incrementAndGet(index);
+                }
+                lookup.verify(rounding);
+            }
+        });
+        Reporter.log("Monetary.getRounding(...) per lookup:");
+        for (int i = 0; i < lookups.size(); i++) {
+            if (counts.get(i) > 0) {
+                Reporter.log(String.format(Locale.ENGLISH, "%,10.0f ns/lookup  %5.1f%% cached  %s",
+                        nanos.get(i) / (double) counts.get(i), cached.get(i) * 100.0 / counts.get(i),
+                        lookups.get(i).name));
+            }
+        }
+    }
+
+    /**
+     * Apply roundings shared by multiple threads.
+     */
+    @SpecAssertion(section = "3.4", id = "34-B5")
+    @Test(description = "3.4 Recommend roundings shared by multiple threads, including cash roundings with "
+            + "timestamps, to round amounts as when called single threaded.")
+    public void testApplySharedRoundingConcurrently() {
+        final List<RoundingLookup> lookups = getLookups();
+        StressTestSupport.runAndReportOpt("Section 3.4", "MonetaryRounding.apply(MonetaryAmount), shared",
+                new StressTestSupport.Task() {
+                    @Override
+                    public void execute(int thread, long iteration) {
+                        RoundingLookup lookup = lookups.get((int) ((iteration + thread) % lookups.size()));
+                        lookup.verify(lookup.first);
+                    }
+                });
+    }
+
+    private static List<RoundingLookup> getLookups() {
+        final Calendar historic = GregorianCalendar.getInstance();
+        historic.setTimeInMillis(0L);
+        final Calendar current = GregorianCalendar.getInstance();
+        List<RoundingLookup> lookups = new ArrayList<>();
+        for (final String currency : new String[]{"CHF", "EUR", "USD", "JPY"}) {
+            add(lookups, currency, new RoundingLookup("getRounding(" + currency + ")") {
+                @Override
+                MonetaryRounding lookup() {
+                    return Monetary.getRounding(Monetary.getCurrency(currency));
+                }
+            });
+            add(lookups, currency, new RoundingLookup("getRounding(" + currency + ", cashRounding)") {
+                @Override
+                MonetaryRounding lookup() {
+                    return Monetary.getRounding(RoundingQueryBuilder.of().setCurrency(Monetary.getCurrency(currency))
+                            .set("cashRounding", true).build());
+                }
+            });
+        }
+        add(lookups, "CHF", new RoundingLookup("getRounding(scale=1, UP)") {
+            @Override
+            MonetaryRounding lookup() {
+                return Monetary.getRounding(RoundingQueryBuilder.of().setScale(1).set(RoundingMode.UP).build());
+            }
+        });
+        add(lookups, "CHF", new RoundingLookup("getRounding(\"NOSCALE\")") {
+            @Override
+            MonetaryRounding lookup() {
+                return Monetary.getRounding("NOSCALE");
+            }
+        });
+        add(lookups, "XAU", new RoundingLookup("getRounding(XAU, Calendar)") {
+            @Override
+            MonetaryRounding lookup() {
+                return Monetary.getRounding(RoundingQueryBuilder.of().setCurrency(Monetary.getCurrency("XAU"))
+                        .set(Calendar.class, current).build());
+            }
+        });
+        add(lookups, "XAU", new RoundingLookup("getRounding(XAU, cashRounding)") {
+            @Override
+            MonetaryRounding lookup() {
+                return Monetary.getRounding(RoundingQueryBuilder.of().setCurrency(Monetary.getCurrency("XAU"))
+                        .set("cashRounding", true).build());
+            }
+        });
+        add(lookups, "XAU", new RoundingLookup("getRounding(XAU, cashRounding, Calendar 1970)") {
+            @Override
+            MonetaryRounding lookup() {
+                return Monetary.getRounding(RoundingQueryBuilder.of().setCurrency(Monetary.getCurrency("XAU"))
+                        .set("cashRounding", true).set(Calendar.class, historic).build());
+            }
+        });
+        AssertJUnit.assertFalse("Section 3.4: No roundings available for stress testing.", lookups.isEmpty());
+        return lookups;
+    }
+
+    private static void add(List<RoundingLookup> lookups, String currency, RoundingLookup lookup) {
+        if (lookup.init(currency)) {
+            lookups.add(lookup);
+        }
+    }
+}
@@ -0,0 +1,421 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck.tests.concurrency;
+
+import org.javamoney.tck.TestUtils;
+import org.testng.AssertJUnit;
+import org.testng.Reporter;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Support for the concurrency stress tests: executes a task from a growing number of threads for a fixed time,
+ * collects the failures and reports the throughput per thread count. The thread counts and the duration can be
+ * configured by the system properties {@code stressThreads} (e.g. {@code -DstressThreads=1,4,16}) and
+ * {@code stressDuration} (milliseconds per thread count). Beside the throughput the time the threads were blocked
+ * on monitors is reported, which indicates lock contention within the implementation. With
+ * {@code -DvirtualThreads=true} the tasks are executed on virtual threads instead and the carrier threads pinned
+ * are reported, see {@link VirtualThreadSupport}.
+ */
+public final class StressTestSupport {
+
+    private static final int[] DEFAULT_THREAD_COUNTS = {1, 2, 4, 8};
+    private static final long DEFAULT_DURATION_MILLIS = 250L;
+
+    private StressTestSupport() {
+    }
+
+    /**
+     * A task executed repeatedly by the stress threads.
+     */
+    public interface Task {
+        /**
+         * Executes the task once. The task must verify its results, throwing an exception or
+         * {@link AssertionError} if they are not consistent.
+         *
+         * @param thread    the index of the executing thread, starting with 0.
+         * @param iteration the iteration of the executing thread, starting with 0.
+         * @throws Exception if the task failed.
+         */
+        void execute(int thread, long iteration) throws Exception;
+    }
+
+    /**
+     * Result of executing a task by a given number of threads.
+     */
+    public static final class Result {
+        private final int threads;
+        private final long operations;
+        private final long nanos;
+        private final int failures;
+        private final Throwable firstFailure;
+        private final long blockedCount;
+        private final long blockedMillis;
+        private final Map<String, Integer> pinnedFrames;
+
+        private Result(int threads, long operations, long nanos, int failures, Throwable firstFailure,
+                       long blockedCount, long blockedMillis, Map<String, Integer> pinnedFrames) {
+            this.threads = threads;
+            this.operations = operations;
+            this.nanos = nanos;
+            this.failures = failures;
+            this.firstFailure = firstFailure;
+            this.blockedCount = blockedCount;
+            this.blockedMillis = blockedMillis;
+            this.pinnedFrames = pinnedFrames;
+        }
+
+        /**
+         * @return the number of threads executing the task.
+         */
+        public int getThreads() {
+            return threads;
+        }
+
+        /**
+         * @return the number of successful task executions.
+         */
+        public long getOperations() {
+            return operations;
+        }
+
+        /**
+         * @return the time elapsed in nanoseconds.
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return the number of failed task executions.
+         */
+        public int getFailures() {
+            return failures;
+        }
+
+        /**
+         * @return the first failure, or null.
+         */
+        public Throwable getFirstFailure() {
+            return firstFailure;
+        }
+
+        /**
+         * @return the number of times the threads blocked on a monitor, as reported by the {@link ThreadMXBean}, or
+         * -1, if not supported for the threads used, e.g. virtual threads.
+         */
+        public long getBlockedCount() {
+            return blockedCount;
+        }
+
+        /**
+         * @return the time the threads blocked on a monitor in milliseconds, or -1, if thread contention monitoring
+         * is not supported by the JVM.
+         */
+        public long getBlockedMillis() {
+            return blockedMillis;
+        }
+
+        /**
+         * @return the number of {@code jdk.VirtualThreadPinned} events per frame pinning the carrier thread, or null,
+         * if the task was not executed on virtual threads or JFR is not available.
+         */
+        public Map<String, Integer> getPinnedFrames() {
+            return pinnedFrames;
+        }
+
+        /**
+         * @return the number of times a carrier thread was pinned, or -1, if not recorded.
+         */
+        public long getPinnedCount() {
+            if (pinnedFrames == null) {
+                return -1L;
+            }
+            long count = 0L;
+            for (Integer frameCount : pinnedFrames.values()) {
+                count += frameCount;
+            }
+            return count;
+        }
+
+        /**
+         * @return the successful task executions per second.
+         */
+        public double getThroughput() {
+            return nanos > 0 ? operations * 1000000000.0 / nanos : 0.0;
+        }
+    }
+
+    /**
+     * Get the thread counts to be tested.
+     *
+     * @return the thread counts, never empty.
+     */
+    public static int[] getThreadCounts() {
+        String value = System.getProperty("stressThreads");
+        if (value == null) {
+            return DEFAULT_THREAD_COUNTS.clone();
+        }
+        String[] parts = value.split(",");
+        int[] counts = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            counts[i] = Integer.parseInt(parts[i].trim());
+            if (counts[i] <= 0) {
+                throw new IllegalArgumentException("Invalid stressThreads: " + value);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Get the time each thread count is tested.
+     *
+     * @return the duration in milliseconds.
+     */
+    public static long getDurationMillis() {
+        String value = System.getProperty("stressDuration");
+        if (value == null) {
+            return DEFAULT_DURATION_MILLIS;
+        }
+        return Long.parseLong(value.trim());
+    }
+
+    /**
+     * Executes the given task with each of the configured thread counts, after warming up single threaded, and reports
+     * the throughput curve. The stress tests check recommendations only: failed task executions do not fail the
+     * test, they are reported as warnings in the TCK summary.
+     *
+     * @param section the section of the spec under test.
+     * @param name    the name of the task, used for reporting.
+     * @param task    the task, not null.
+     * @return true, if no task execution failed.
+     */
+    public static boolean runAndReportOpt(String section, String name, Task task) {
+        Result failed = runAndReport(section, name, task, new ArrayList<Result>());
+        if (failed != null) {
+            String warning = name + " should be thread-safe, failed " + failed.getFailures() + " times with "
+                    + failed.getThreads() + " threads, first failure: " + failed.getFirstFailure();
+            Reporter.log("Recommendation failed: " + warning);
+            TestUtils.addRecommendationWarning(section, warning);
+            return false;
+        }
+        return true;
+    }
+
+    private static Result runAndReport(String section, String name, Task task, List<Result> results) {
+        // warm up, so the first thread count measured is not penalized
+        Result warmup = run(1, getDurationMillis(), task);
+        for (int threads : getThreadCounts()) {
+            results.add(run(threads, getDurationMillis(), task));
+        }
+        report(name, results);
+        reportPinning(section, name, results);
+        List<Result> all = new ArrayList<>(results);
+        all.add(0, warmup);
+        for (Result result : all) {
+            if (result.getFailures() > 0) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Executes the given task by the given number of threads for the given time. All threads are started at once.
+     * The lock contention of the threads is measured using the {@link ThreadMXBean}, thread contention monitoring is
+     * enabled for the run, if supported. If virtual threads are active, the task is executed on virtual threads and
+     * the carrier threads pinned are recorded instead.
+     *
+     * @param threads        the number of threads.
+     * @param durationMillis the time to execute the task.
+     * @param task           the task, not null.
+     * @return the result.
+     */
+    public static Result run(int threads, final long durationMillis, final Task task) {
+        final CountDownLatch start = new CountDownLatch(1);
+        final long[] operations = new long[threads];
+        final AtomicInteger failures = new AtomicInteger();
+        final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        final long[] deadline = new long[1];
+        final long[] blockedCounts = new long[threads];
+        final long[] blockedTimes = new long[threads];
+        final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        boolean contentionMonitoring = threadBean.isThreadContentionMonitoringSupported();
+        boolean contentionMonitoringEnabled = contentionMonitoring && threadBean.isThreadContentionMonitoringEnabled();
+        if (contentionMonitoring && !contentionMonitoringEnabled) {
+            threadBean.setThreadContentionMonitoringEnabled(true);
+        }
+        boolean virtual = VirtualThreadSupport.isActive();
+        VirtualThreadSupport.PinningRecorder pinningRecorder = null;
+        if (virtual) {
+            pinningRecorder = new VirtualThreadSupport.PinningRecorder();
+            pinningRecorder.start();
+        }
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            final int index = i;
+            Runnable worker = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    ThreadInfo before = threadBean.getThreadInfo(Thread.currentThread().getId());
+                    long end = deadline[0];
+                    long iteration = 0;
+                    while (System.nanoTime() < end) {
+                        try {
+                            task.execute(index, iteration);
+                            operations[index]++;
+                        } catch (Exception | AssertionError e) {
+                            failures.incrementAndGet();
+                            firstFailure.compareAndSet(null, e);
+                        }
+                        iteration++;
+                    }
+                    ThreadInfo after = threadBean.getThreadInfo(Thread.currentThread().getId());
+                    if (before == null || after == null) {
+                        // not supported for virtual threads
+                        blockedCounts[index] = -1L;
+                        blockedTimes[index] = -1L;
+                    } else if (after.getBlockedTime() >= 0 && before.getBlockedTime() >= 0) {
+                        blockedCounts[index] = after.getBlockedCount() - before.getBlockedCount();
+                        blockedTimes[index] = after.getBlockedTime() - before.getBlockedTime();
+                    } else {
+                        blockedCounts[index] = after.getBlockedCount() - before.getBlockedCount();
+                        blockedTimes[index] = -1L;
+                    }
+                }
+            };
+            Thread thread;
+            if (virtual) {
+                thread = VirtualThreadSupport.newVirtualThread("TCK-Stress-" + i, worker);
+            } else {
+                thread = new Thread(worker, "TCK-Stress-" + i);
+                thread.setDaemon(true);
+            }
+            workers.add(thread);
+            thread.start();
+        }
+        long begin = System.nanoTime();
+        deadline[0] = begin + TimeUnit.MILLISECONDS.toNanos(durationMillis);
+        start.countDown();
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                AssertJUnit.fail("Interrupted while waiting for the stress threads.");
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+        Map<String, Integer> pinnedFrames = pinningRecorder == null ? null : pinningRecorder.stop();
+        if (contentionMonitoring && !contentionMonitoringEnabled) {
+            threadBean.setThreadContentionMonitoringEnabled(false);
+        }
+        long total = 0L;
+        long blockedCount = 0L;
+        long blockedMillis = 0L;
+        for (int i = 0; i < threads; i++) {
+            total += operations[i];
+            if (blockedCount >= 0 && blockedCounts[i] >= 0) {
+                blockedCount += blockedCounts[i];
+            } else {
+                blockedCount = -1L;
+            }
+            if (blockedMillis >= 0 && blockedTimes[i] >= 0) {
+                blockedMillis += blockedTimes[i];
+            } else {
+                blockedMillis = -1L;
+            }
+        }
+        return new Result(threads, total, elapsed, failures.get(), firstFailure.get(), blockedCount, blockedMillis,
+                pinnedFrames);
+    }
+
+    /**
+     * Reports the throughput curve of the given results using {@link Reporter}, so it is contained in the TCK
+     * report.
+     *
+     * @param name    the name of the task.
+     * @param results the results, not null.
+     */
+    public static void report(String name, List<Result> results) {
+        if (VirtualThreadSupport.isActive()) {
+            Reporter.log(name + " throughput on virtual threads:");
+        } else {
+            Reporter.log(name + " throughput:");
+        }
+        double base = results.isEmpty() ? 0.0 : results.get(0).getThroughput() / results.get(0).getThreads();
+        for (Result result : results) {
+            double scaling = base > 0 ? result.getThroughput() / base : 0.0;
+            String text = String.format(Locale.ENGLISH, "%4d threads: %,14.0f ops/s  (scaling %5.2f)",
+                    result.getThreads(), result.getThroughput(), scaling);
+            if (result.getBlockedCount() >= 0) {
+                text += ", blocked " + result.getBlockedCount() + " times";
+                if (result.getBlockedMillis() >= 0) {
+                    text += " for " + result.getBlockedMillis() + " ms";
+                }
+            }
+            if (result.getPinnedCount() >= 0) {
+                text += ", pinned " + result.getPinnedCount() + " times";
+            }
+            Reporter.log(text);
+        }
+    }
+
+    /**
+     * Reports the frames pinning carrier threads of the given results using {@link Reporter}. Pinning carrier threads
+     * does not fail the TCK, it is reported as warning in the TCK summary.
+     *
+     * @param section the section of the spec under test.
+     * @param name    the name of the task.
+     * @param results the results, not null.
+     * @return true, if no carrier thread was pinned or pinning was not recorded.
+     */
+    public static boolean reportPinning(String section, String name, List<Result> results) {
+        Map<String, Integer> frames = new LinkedHashMap<>();
+        for (Result result : results) {
+            if (result.getPinnedFrames() != null) {
+                for (Map.Entry<String, Integer> en : result.getPinnedFrames().entrySet()) {
+                    Integer count = frames.get(en.getKey());
+                    frames.put(en.getKey(), count == null ? en.getValue() : count + en.getValue());
+                }
+            }
+        }
+        if (frames.isEmpty()) {
+            return true;
+        }
+        frames = VirtualThreadSupport.sortByCount(frames);
+        Reporter.log(name + " pinned carrier threads at:");
+        long total = 0L;
+        for (Map.Entry<String, Integer> en : frames.entrySet()) {
+            Reporter.log(String.format(Locale.ENGLISH, "%10d times  %s", en.getValue(), en.getKey()));
+            total += en.getValue();
+        }
+        TestUtils.addRecommendationWarning(section, name + " should not pin carrier threads, pinned " + total
+                + " times, first at " + frames.keySet().iterator().next());
+        return false;
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck.tests.concurrency;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Support for executing the stress tests on virtual threads, enabled by the system property
+ * {@code virtualThreads=true}. Virtual threads and the {@code jdk.VirtualThreadPinned} JFR event require JDK 21 or
+ * later, whereas the TCK targets Java 8, so both are accessed by reflection. On older JDKs the stress tests fall back
+ * to platform threads.
+ */
+public final class VirtualThreadSupport {
+
+    /**
+     * The JFR event raised, when a virtual thread blocks while pinned to its carrier thread.
+     */
+    public static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    /**
+     * Frames of these packages are not reported as the frame pinning the carrier, since they belong to the JDK or
+     * to the TCK.
+     */
+    private static final String[] PLATFORM_PACKAGES = {"java.", "javax.", "jdk.", "sun.", "com.sun.",
+            "org.javamoney.tck."};
+
+    private static final Method OF_VIRTUAL = findVirtualThreadFactory();
+
+    private VirtualThreadSupport() {
+    }
+
+    /**
+     * Checks if the stress tests should be executed on virtual threads.
+     *
+     * @return true, if {@code -DvirtualThreads=true} is set.
+     */
+    public static boolean isEnabled() {
+        return Boolean.getBoolean("virtualThreads");
+    }
+
+    /**
+     * Checks if the running JDK supports virtual threads.
+     *
+     * @return true, if virtual threads can be created.
+     */
+    public static boolean isAvailable() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Checks if the stress tests are executed on virtual threads, i.e. they are enabled and available.
+     *
+     * @return true, if virtual threads are used.
+     */
+    public static boolean isActive() {
+        return isEnabled() && isAvailable();
+    }
+
+    /**
+     * Creates a new, not yet started virtual thread.
+     *
+     * @param name     the thread's name.
+     * @param runnable the code executed.
+     * @return the new thread.
+     * @throws IllegalStateException if virtual threads are not available.
+     */
+    public static Thread newVirtualThread(String name, Runnable runnable) {
+        if (OF_VIRTUAL == null) {
+            throw new IllegalStateException("Virtual threads require JDK 21 or later.");
+        }
+        try {
+            Object builder = OF_VIRTUAL.invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class).invoke(builder, name);
+            return (Thread) builderType.getMethod("unstarted", Runnable.class).invoke(builder, runnable);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create virtual thread.", e);
+        }
+    }
+
+    /**
+     * Records {@code jdk.VirtualThreadPinned} events using a JFR recording, counting them by the frame pinning the
+     * carrier thread. The frame is the top most frame not belonging to the JDK or the TCK, so it is located in the
+     * implementation tested, e.g. its {@code ExchangeRateProvider} or SPI code.
+     */
+    public static final class PinningRecorder {
+        private final String eventName;
+        private Object recording;
+
+        /**
+         * Creates a recorder of {@link #PINNED_EVENT}.
+         */
+        public PinningRecorder() {
+            this(PINNED_EVENT);
+        }
+
+        /**
+         * Creates a recorder of the given event, which must provide a stack trace.
+         *
+         * @param eventName the JFR event name.
+         */
+        public PinningRecorder(String eventName) {
+            this.eventName = eventName;
+        }
+
+        /**
+         * Starts the recording. If JFR is not available, nothing is recorded.
+         *
+         * @return true, if the recording was started.
+         */
+        public boolean start() {
+            try {
+                Class<?> recordingType = Class.forName("jdk.jfr.Recording");
+                Object newRecording = recordingType.getConstructor().newInstance();
+                Object settings = recordingType.getMethod("enable", String.class).invoke(newRecording, eventName);
+                Class<?> settingsType = Class.forName("jdk.jfr.EventSettings");
+                settingsType.getMethod("withStackTrace").invoke(settings);
+                settingsType.getMethod("withThreshold", Duration.class).invoke(settings, Duration.ZERO);
+                recordingType.getMethod("start").invoke(newRecording);
+                this.recording = newRecording;
+                return true;
+            } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+                this.recording = null;
+                return false;
+            }
+        }
+
+        /**
+         * Stops the recording and evaluates the events recorded.
+         *
+         * @return the number of events per frame pinning the carrier, as {@code class.method(line)}, most frequent
+         * first, or null, if nothing was recorded.
+         */
+        public Map<String, Integer> stop() {
+            if (recording == null) {
+                return null;
+            }
+            Path file = null;
+            try {
+                Class<?> recordingType = recording.getClass();
+                recordingType.getMethod("stop").invoke(recording);
+                file = Files.createTempFile("tck-pinning", ".jfr");
+                recordingType.getMethod("dump", Path.class).invoke(recording, file);
+                recordingType.getMethod("close").invoke(recording);
+                Class<?> fileType = Class.forName("jdk.jfr.consumer.RecordingFile");
+                List<?> events = (List<?>) fileType.getMethod("readAllEvents", Path.class).invoke(null, file);
+                Map<String, Integer> frames = new LinkedHashMap<>();
+                for (Object event : events) {
+                    String frame = getOffendingFrame(event);
+                    Integer count = frames.get(frame);
+                    frames.put(frame, count == null ? 1 : count + 1);
+                }
+                return sortByCount(frames);
+            } catch (ReflectiveOperationException | IOException e) {
+                throw new IllegalStateException("Failed to evaluate JFR recording.", e);
+            } finally {
+                recording = null;
+                if (file != null) {
+                    file.toFile().delete();
+                }
+            }
+        }
+
+        private static String getOffendingFrame(Object event) throws ReflectiveOperationException {
+            Object stackTrace = Class.forName("jdk.jfr.consumer.RecordedEvent").getMethod("getStackTrace")
+                    .invoke(event);
+            if (stackTrace == null) {
+                return "<no stack trace>";
+            }
+            Class<?> frameType = Class.forName("jdk.jfr.consumer.RecordedFrame");
+            Class<?> methodType = Class.forName("jdk.jfr.consumer.RecordedMethod");
+            Class<?> classType = Class.forName("jdk.jfr.consumer.RecordedClass");
+            List<?> frames = (List<?>) Class.forName("jdk.jfr.consumer.RecordedStackTrace").getMethod("getFrames")
+                    .invoke(stackTrace);
+            String first = null;
+            for (Object frame : frames) {
+                Object method = frameType.getMethod("getMethod").invoke(frame);
+                Object type = methodType.getMethod("getType").invoke(method);
+                String typeName = (String) classType.getMethod("getName").invoke(type);
+                String text = typeName + '.' + methodType.getMethod("getName").invoke(method) + '('
+                        + frameType.getMethod("getLineNumber").invoke(frame) + ')';
+                if (first == null) {
+                    first = text;
+                }
+                if (!isPlatformType(typeName)) {
+                    return text;
+                }
+            }
+            return first == null ? "<no stack trace>" : first;
+        }
+    }
+
+    private static boolean isPlatformType(String typeName) {
+        for (String prefix : PLATFORM_PACKAGES) {
+            if (typeName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sorts the given counts, most frequent first.
+     *
+     * @param counts the counts, not null.
+     * @return the sorted counts.
+     */
+    static Map<String, Integer> sortByCount(Map<String, Integer> counts) {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(counts.entrySet());
+        Collections.sort(entries, new Comparator<Map.Entry<String, Integer>>() {
+            @Override
+            public int compare(Map.Entry<String, Integer> en1, Map.Entry<String, Integer> en2) {
+                return en2.getValue().compareTo(en1.getValue());
+            }
+        });
+        Map<String, Integer> sorted = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> en : entries) {
+            sorted.put(en.getKey(), en.getValue());
+        }
+        return sorted;
+    }
+
+    private static Method findVirtualThreadFactory() {
+        try {
+            Method method = Thread.class.getMethod("ofVirtual");
+            // fails on JDKs providing virtual threads as preview feature only, if not enabled
+            method.invoke(null);
+            return method;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
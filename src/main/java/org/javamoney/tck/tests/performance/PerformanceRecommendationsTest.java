@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck.tests.performance;
+
+import org.javamoney.tck.TCKTestSetup;
+import org.javamoney.tck.TestUtils;
+import org.jboss.test.audit.annotations.SpecAssertion;
+import org.jboss.test.audit.annotations.SpecVersion;
+import org.testng.annotations.Test;
+
+import javax.money.Monetary;
+import javax.money.MonetaryAmount;
+
+/**
+ * Checks optional performance recommendations. Violations do not fail the TCK, they are reported as warnings in
+ * the TCK summary. The budgets can be adapted using system properties, see
+ * {@link TestUtils#getBudget(String, long)}.
+ */
+@SpecVersion(spec = "JSR 354", version = "1.1.0")
+public class PerformanceRecommendationsTest {
+
+    private static final String DEFAULT_CURRENCY = "CHF";
+    private static final int ITERATIONS = 10000;
+
+    /**
+     * Result of the last operation measured, so it cannot be optimized away.
+     */
+    private volatile Object sink;
+
+    /**
+     * Checks the bytes allocated per add() call are within budget.
+     */
+    @SpecAssertion(section = "3.4", id = "34-A1")
+    @Test(description = "3.4 For each amount class, recommend add() to allocate at most budget.amountAddBytes "
+            + "(default 1024) bytes.")
+    public void testAddAllocationBudget() {
+        for (Class type : TCKTestSetup.getTestConfiguration().getAmountClasses()) {
+            final MonetaryAmount mAmount1 =
+                    Monetary.getAmountFactory(type).setCurrency(DEFAULT_CURRENCY).setNumber(10).create();
+            final MonetaryAmount mAmount2 =
+                    Monetary.getAmountFactory(type).setCurrency(DEFAULT_CURRENCY).setNumber(20).create();
+            TestUtils.testAllocationBudgetOpt("Section 3.4", "amountAddBytes", 1024L,
+                    type.getName() + ".add()", ITERATIONS, new Runnable() {
+                        @Override
+                        public void run() {
+                            sink = mAmount1.add(mAmount2);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * Checks repeated currency lookups are within budget.
+     */
+    @SpecAssertion(section = "3.4", id = "34-A2")
+    @Test(description = "3.4 Recommend repeated Monetary.getCurrency(\"CHF\") calls to take at most "
+            + "budget.currencyLookupNanos (default 20000) ns.")
+    public void testCurrencyLookupBudget() {
+        TestUtils.testTimeBudgetOpt("Section 3.4", "currencyLookupNanos", 20000L,
+                "Monetary.getCurrency(\"" + DEFAULT_CURRENCY + "\")", ITERATIONS, new Runnable() {
+                    @Override
+                    public void run() {
+                        sink = Monetary.getCurrency(DEFAULT_CURRENCY);
+                    }
+                });
+    }
+
+    /**
+     * Checks the bytes allocated per currency lookup are within budget.
+     */
+    @SpecAssertion(section = "3.4", id = "34-A2")
+    @Test(description = "3.4 Recommend repeated Monetary.getCurrency(\"CHF\") calls to allocate at most "
+            + "budget.currencyLookupBytes (default 4096) bytes.")
+    public void testCurrencyLookupAllocationBudget() {
+        TestUtils.testAllocationBudgetOpt("Section 3.4", "currencyLookupBytes", 4096L,
+                "Monetary.getCurrency(\"" + DEFAULT_CURRENCY + "\")", ITERATIONS, new Runnable() {
+                    @Override
+                    public void run() {
+                        sink = Monetary.getCurrency(DEFAULT_CURRENCY);
+                    }
+                });
+    }
+}
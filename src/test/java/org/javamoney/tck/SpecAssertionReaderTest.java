@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.javamoney.tck.tests.ModellingMonetaryAmountsTest;
+import org.jboss.test.audit.annotations.SpecAssertion;
+import org.jboss.test.audit.annotations.SpecAssertions;
+import org.testng.annotations.Test;
+
+/**
+ * Test class for reading the {@code @SpecAssertion} annotations from the class files, see
+ * {@link SpecAssertionReader}.
+ */
+public class SpecAssertionReaderTest {
+
+    /**
+     * Methods annotated in the different forms supported, the annotations are not visible by reflection.
+     */
+    static final class Annotated {
+
+        @SpecAssertion(section = "4.2.2", id = "422-D1")
+        void single() {
+        }
+
+        @SpecAssertions({
+                @SpecAssertion(section = "4.2.2", id = "422-D2"),
+                @SpecAssertion(section = "4.3.3", id = "433-A3")
+        })
+        void container() {
+        }
+
+        @SpecAssertion(section = "4.2.3", id = "423-B9")
+        @SpecAssertion(section = "4.2.3", id = "423-A9")
+        void repeated() {
+        }
+
+        @Deprecated
+        @SpecAssertion(section = "4.2.1", id = "421-A1")
+        void withOtherAnnotation(String value, int[] values) {
+        }
+
+        void notAnnotated() {
+        }
+    }
+
+    @Test
+    public void testSingleAssertion() throws NoSuchMethodException {
+        List<SpecAssertionReader.Assertion> assertions = getAssertions("single");
+        assertEquals(assertions.size(), 1);
+        assertEquals(assertions.get(0).getSection(), "4.2.2");
+        assertEquals(assertions.get(0).getId(), "422-D1");
+    }
+
+    @Test
+    public void testContainer() throws NoSuchMethodException {
+        List<SpecAssertionReader.Assertion> assertions = getAssertions("container");
+        assertEquals(assertions.size(), 2);
+        assertEquals(assertions.get(0).toString(), "422-D2 (4.2.2)");
+        assertEquals(assertions.get(1).toString(), "433-A3 (4.3.3)");
+    }
+
+    @Test
+    public void testRepeated() throws NoSuchMethodException {
+        List<SpecAssertionReader.Assertion> assertions = getAssertions("repeated");
+        assertEquals(assertions.size(), 2);
+        assertEquals(assertions.get(0).toString(), "423-B9 (4.2.3)");
+        assertEquals(assertions.get(1).toString(), "423-A9 (4.2.3)");
+    }
+
+    @Test
+    public void testOtherAnnotationsIgnored() throws NoSuchMethodException {
+        List<SpecAssertionReader.Assertion> assertions = SpecAssertionReader.getAssertions(
+                Annotated.class.getDeclaredMethod("withOtherAnnotation", String.class, int[].class));
+        assertEquals(assertions.size(), 1);
+        assertEquals(assertions.get(0).toString(), "421-A1 (4.2.1)");
+    }
+
+    @Test
+    public void testNotAnnotated() throws NoSuchMethodException {
+        assertTrue(getAssertions("notAnnotated").isEmpty());
+    }
+
+    @Test
+    public void testTCKTestMethod() throws NoSuchMethodException {
+        Method method = ModellingMonetaryAmountsTest.class.getMethod("testImmutable");
+        // CLASS retention, otherwise the annotations should be read by reflection
+        assertNull(method.getAnnotation(SpecAssertion.class));
+        assertNull(method.getAnnotation(SpecAssertions.class));
+        List<SpecAssertionReader.Assertion> assertions = SpecAssertionReader.getAssertions(method);
+        assertEquals(assertions.size(), 1);
+        assertEquals(assertions.get(0).toString(), "422-F4 (4.2.2)");
+    }
+
+    private static List<SpecAssertionReader.Assertion> getAssertions(String methodName)
+            throws NoSuchMethodException {
+        return SpecAssertionReader.getAssertions(Annotated.class.getDeclaredMethod(methodName));
+    }
+}
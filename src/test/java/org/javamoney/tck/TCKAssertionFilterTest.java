@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+/**
+ * Test class for selecting the TCK tests by spec assertion, see
+ * {@link TCKRunner#setAssertionFilter(String, String)}.
+ */
+public class TCKAssertionFilterTest {
+
+    @Test
+    public void testNullFilterMatchesAll() {
+        assertTrue(TCKRunner.matches(null, "422-D1"));
+        assertTrue(TCKRunner.matches(null, null));
+    }
+
+    @Test
+    public void testIncludeWildcards() {
+        String filter = "422-D*,433-*";
+        assertTrue(TCKRunner.matches(filter, "422-D1"));
+        assertTrue(TCKRunner.matches(filter, "422-D24"));
+        assertTrue(TCKRunner.matches(filter, "433-A3"));
+        assertFalse(TCKRunner.matches(filter, "422-A1"));
+        assertFalse(TCKRunner.matches(filter, "423-B9"));
+        assertFalse(TCKRunner.matches(filter, "1422-D1"));
+        assertFalse(TCKRunner.matches(filter, null));
+    }
+
+    @Test
+    public void testExactMatch() {
+        assertTrue(TCKRunner.matches("422-D1", "422-D1"));
+        assertFalse(TCKRunner.matches("422-D1", "422-D12"));
+        assertTrue(TCKRunner.matches(" 422-D1 , 433-A3 ", "433-A3"));
+    }
+
+    @Test
+    public void testPatternCharactersAreLiteral() {
+        assertTrue(TCKRunner.matches("4.2.2", "4.2.2"));
+        assertFalse(TCKRunner.matches("4.2.2", "4x2x2"));
+        assertTrue(TCKRunner.matches("4.2.*", "4.2.3"));
+    }
+
+    @Test
+    public void testExcludes() {
+        String filter = "422-D*,433-*,!433-A3";
+        assertTrue(TCKRunner.matches(filter, "433-A2"));
+        assertFalse(TCKRunner.matches(filter, "433-A3"));
+        assertTrue(TCKRunner.matches(filter, "422-D1"));
+        assertFalse(TCKRunner.matches("!422-*", "422-D1"));
+        assertTrue(TCKRunner.matches("!422-*", "423-B9"));
+        assertFalse(TCKRunner.matches("*,!*", "423-B9"));
+    }
+
+    @Test
+    public void testFilterByAssertionId() {
+        TCKRunner runner = new TCKRunner();
+        List<Method> all = runner.getSelectedTestMethods();
+        runner.setAssertionFilter(null, "422-D*,!422-D1*");
+        List<Method> selected = runner.getSelectedTestMethods();
+        assertFalse(selected.isEmpty());
+        for (Method method : all) {
+            boolean matching = false;
+            for (SpecAssertionReader.Assertion assertion : SpecAssertionReader.getAssertions(method)) {
+                String id = assertion.getId();
+                matching = matching || (id.startsWith("422-D") && !id.startsWith("422-D1"));
+            }
+            assertEquals(selected.contains(method), matching, method.toString());
+        }
+    }
+
+    @Test
+    public void testFilterBySectionOnly() {
+        TCKRunner runner = new TCKRunner();
+        List<Method> all = runner.getSelectedTestMethods();
+        runner.setAssertionFilter("4.2.2", null);
+        List<Method> selected = runner.getSelectedTestMethods();
+        assertFalse(selected.isEmpty());
+        assertTrue(selected.size() < all.size());
+        for (Method method : all) {
+            boolean matching = false;
+            for (SpecAssertionReader.Assertion assertion : SpecAssertionReader.getAssertions(method)) {
+                matching = matching || "4.2.2".equals(assertion.getSection());
+            }
+            assertEquals(selected.contains(method), matching, method.toString());
+        }
+    }
+
+    @Test
+    public void testFilterBySectionAndId() {
+        TCKRunner runner = new TCKRunner();
+        runner.setAssertionFilter("4.2.*", "!42*-D*");
+        List<Method> selected = runner.getSelectedTestMethods();
+        assertFalse(selected.isEmpty());
+        for (Method method : selected) {
+            boolean matching = false;
+            for (SpecAssertionReader.Assertion assertion : SpecAssertionReader.getAssertions(method)) {
+                matching = matching || (assertion.getSection().startsWith("4.2.")
+                        && !assertion.getId().matches("42.*-D.*"));
+            }
+            assertTrue(matching, method.toString());
+        }
+    }
+
+    @Test
+    public void testFilterMatchingNothing() {
+        TCKRunner runner = new TCKRunner();
+        runner.setAssertionFilter(null, "does-not-exist");
+        assertTrue(runner.getSelectedTestMethods().isEmpty());
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+import org.testng.xml.XmlSuite;
+
+/**
+ * Test class for the parallel execution of the TCK, see {@code -Dparallel=methods}: the results must be the same as
+ * when executing the TCK serially.
+ */
+public class TCKParallelTest {
+
+    @Test
+    public void testParallelResultsEqualSerialResults() throws IOException {
+        Map<String, String> serialResults = runTCK(null);
+        Map<String, String> parallelResults = runTCK("methods");
+        assertFalse(serialResults.isEmpty());
+        assertEquals(parallelResults, serialResults);
+    }
+
+    private static Map<String, String> runTCK(String parallelMode) throws IOException {
+        File reportFile = File.createTempFile("tck-results", ".txt");
+        reportFile.deleteOnExit();
+        File statusFile = TCKRunner.TCKReporter.getStatusFile(reportFile);
+        statusFile.deleteOnExit();
+        TCKRunner.TCKReporter.getReportFile(reportFile, "-timings.csv").deleteOnExit();
+        TCKRunner suite = new TCKRunner();
+        if (parallelMode != null) {
+            suite.setParallelMode(parallelMode, 4);
+        }
+        TCKRunner.TCKReporter reporter = new TCKRunner.TCKReporter(reportFile);
+        TestNG tng = new TestNG();
+        tng.setUseDefaultListeners(false);
+        tng.setOutputDirectory(new File(reportFile.getParentFile(), "tck-parallel-output").getPath());
+        tng.setXmlSuites(Collections.<XmlSuite>singletonList(suite));
+        tng.addListener(reporter);
+        tng.run();
+        reporter.writeSummary();
+        return TCKRunner.TCKReporter.readResults(statusFile);
+    }
+}
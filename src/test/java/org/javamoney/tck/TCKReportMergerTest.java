@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.testng.annotations.Test;
+
+/**
+ * Test class for merging the reports of several TCK runs, see {@link TCKReportMerger}.
+ */
+public class TCKReportMergerTest {
+
+    private static final String HEADER =
+            "********************************************************************************************\n"
+            + "**** JSR 354 - Money & Currency, Technical Compatibility Kit, version 1.1\n"
+            + "********************************************************************************************\n\n"
+            + "Executed on Sat Oct 17 20:02:46 UTC 2026\n\n";
+
+    private static final String WARNING_1 = "Section 3.4: Recommendation failed: Class should be immutable: Foo";
+    private static final String WARNING_2 = "Section 3.4: Recommendation failed: Class should be serializable: Bar";
+
+    @Test
+    public void testMergeCounts() throws IOException {
+        TCKReportMerger merger = new TCKReportMerger();
+        merger.addReport(createReport("shard1",
+                "[SUCCESS] 4.1 Test one.(ATest#testOne)\n"
+                        + "[FAILED]  4.1 Test two.(ATest#testTwo):\n"
+                        + "java.lang.AssertionError: two failed\n"
+                        + "\tat org.javamoney.tck.ATest.testTwo(ATest.java:42)\n",
+                summary(2, 0, 1, 1)));
+        merger.addReport(createReport("shard2",
+                "[SKIPPED] 4.2 Test three.(BTest#testThree)\n"
+                        + "[SUCCESS] 4.2 Test four.(BTest#testFour)\n"
+                        + "[SUCCESS] 4.2 Test five.(BTest#testFive)\n",
+                summary(3, 1, 2, 0)));
+        String summary = merger.getSummary();
+        assertTrue(summary.contains("TOTAL TESTS EXECUTED : 5\n"), summary);
+        assertTrue(summary.contains("TOTAL TESTS SKIPPED  : 1\n"), summary);
+        assertTrue(summary.contains("TOTAL TESTS SUCCESS  : 3\n"), summary);
+        assertTrue(summary.contains("TOTAL TESTS FAILED   : 1\n"), summary);
+        assertFalse(summary.contains("RECOMMENDATIONS NOT MET"), summary);
+    }
+
+    @Test
+    public void testLastEntryWins() throws IOException {
+        TCKReportMerger merger = new TCKReportMerger();
+        merger.addReport(createReport("run",
+                "[FAILED]  4.1 Test one.(ATest#testOne):\njava.lang.AssertionError: one failed\n",
+                summary(1, 0, 0, 1)));
+        merger.addReport(createReport("rerun", "[SUCCESS] 4.1 Test one.(ATest#testOne)\n", summary(1, 0, 1, 0)));
+        String summary = merger.getSummary();
+        assertTrue(summary.contains("TOTAL TESTS EXECUTED : 1\n"), summary);
+        assertTrue(summary.contains("TOTAL TESTS SUCCESS  : 1\n"), summary);
+        assertTrue(summary.contains("TOTAL TESTS FAILED   : 0\n"), summary);
+    }
+
+    @Test
+    public void testLastEntryWinsWithoutDescription() throws IOException {
+        TCKReportMerger merger = new TCKReportMerger();
+        merger.addReport(createReport("run",
+                "[FAILED]  ATest#testOne:\njava.lang.AssertionError: one failed\n"
+                        + "[SKIPPED] ATest#testTwo\n",
+                summary(2, 1, 0, 1)));
+        merger.addReport(createReport("rerun", "[SUCCESS] ATest#testOne\n[SUCCESS] ATest#testTwo\n",
+                summary(2, 0, 2, 0)));
+        String summary = merger.getSummary();
+        assertTrue(summary.contains("TOTAL TESTS EXECUTED : 2\n"), summary);
+        assertTrue(summary.contains("TOTAL TESTS SKIPPED  : 0\n"), summary);
+        assertTrue(summary.contains("TOTAL TESTS SUCCESS  : 2\n"), summary);
+        assertTrue(summary.contains("TOTAL TESTS FAILED   : 0\n"), summary);
+    }
+
+    @Test
+    public void testMergeFailureDetails() throws IOException {
+        TCKReportMerger merger = new TCKReportMerger();
+        merger.addReport(createReport("shard1",
+                "[FAILED]  4.1 Test two.(ATest#testTwo):\n"
+                        + "java.lang.AssertionError: two failed\n"
+                        + "\tat org.javamoney.tck.ATest.testTwo(ATest.java:42)\n\n",
+                summary(1, 0, 0, 1)));
+        merger.addReport(createReport("shard2", "[SUCCESS] 4.2 Test four.(BTest#testFour)\n", summary(1, 0, 1, 0)));
+        File target = File.createTempFile("merged", ".txt");
+        target.deleteOnExit();
+        merger.writeReport(target);
+        String merged = new String(Files.readAllBytes(target.toPath()), StandardCharsets.UTF_8);
+        assertTrue(merged.contains("[FAILED]  4.1 Test two.(ATest#testTwo):\n"
+                + "java.lang.AssertionError: two failed\n"
+                + "\tat org.javamoney.tck.ATest.testTwo(ATest.java:42)\n"
+                + "[SUCCESS] 4.2 Test four.(BTest#testFour)\n"), merged);
+        assertTrue(merged.endsWith(merger.getSummary()), merged);
+        assertEquals(merged.indexOf("Summary"), merged.lastIndexOf("Summary"), merged);
+    }
+
+    @Test
+    public void testMergeWarnings() throws IOException {
+        TCKReportMerger merger = new TCKReportMerger();
+        merger.addReport(createReport("shard1", "[SUCCESS] 4.1 Test one.(ATest#testOne)\n",
+                summary(1, 0, 1, 0) + "\nRECOMMENDATIONS NOT MET\n" + WARNING_1 + '\n'
+                        + "\nSLOWEST TESTS\n     12.0 ms  ATest#testOne\n"));
+        merger.addReport(createReport("shard2", "[SUCCESS] 4.2 Test four.(BTest#testFour)\n",
+                summary(1, 0, 1, 0) + "\nRECOMMENDATIONS NOT MET\n" + WARNING_1 + '\n' + WARNING_2 + '\n'));
+        String summary = merger.getSummary();
+        assertTrue(summary.endsWith("\nRECOMMENDATIONS NOT MET\n" + WARNING_1 + '\n' + WARNING_2 + '\n'), summary);
+        assertFalse(summary.contains("SLOWEST TESTS"), summary);
+        assertTrue(summary.contains("TOTAL TESTS EXECUTED : 2\n"), summary);
+    }
+
+    private static String summary(int total, int skipped, int success, int failed) {
+        return "\nJSR 354 TCK, version 1.1 Summary\n"
+                + "------------------------------------------\n"
+                + "\nTOTAL TESTS EXECUTED : " + total + '\n'
+                + "TOTAL TESTS SKIPPED  : " + skipped + '\n'
+                + "TOTAL TESTS SUCCESS  : " + success + '\n'
+                + "TOTAL TESTS FAILED   : " + failed + '\n';
+    }
+
+    private static File createReport(String name, String entries, String summary) throws IOException {
+        File file = File.createTempFile(name, ".txt");
+        file.deleteOnExit();
+        try (Writer w = new FileWriter(file)) {
+            w.write(HEADER);
+            w.write(entries);
+            w.write(summary);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck;
+
+import org.testng.annotations.Test;
+
+/**
+ * Test class re-executed by {@link TCKRerunTest}, one previously failed test succeeds now, the previously skipped
+ * one fails. This class is not a test on its own.
+ */
+public class TCKRerunFixture {
+
+    @Test
+    public void testFixed() {
+    }
+
+    @Test
+    public void testStillBroken() {
+        throw new AssertionError("still broken");
+    }
+}
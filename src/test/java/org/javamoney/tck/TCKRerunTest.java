@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.javamoney.tck.tests.ModellingCurrenciesTest;
+import org.testng.TestNG;
+import org.testng.annotations.Test;
+
+/**
+ * Test class for re-executing the tests failed or skipped in a previous run, see {@code -Drerun=failed}.
+ */
+public class TCKRerunTest {
+
+    private static final String CURRENCIES_TEST = ModellingCurrenciesTest.class.getName();
+    private static final String FIXTURE = TCKRerunFixture.class.getName();
+
+    @Test
+    public void testReadResults() throws IOException {
+        File statusFile = createStatusFile("FAILED\t" + CURRENCIES_TEST + "#testISOCodes\n"
+                + "SUCCESS\t" + CURRENCIES_TEST + "#testEqualISOCurrencies\n"
+                + "SKIPPED\t" + CURRENCIES_TEST + "#testEnforce3LetterCode4ISO\n"
+                + "invalid line\n");
+        Map<String, String> results = TCKRunner.TCKReporter.readResults(statusFile);
+        assertEquals(results.size(), 3);
+        assertEquals(results.get(CURRENCIES_TEST + "#testISOCodes"), "FAILED");
+        assertEquals(results.get(CURRENCIES_TEST + "#testEqualISOCurrencies"), "SUCCESS");
+        assertEquals(results.get(CURRENCIES_TEST + "#testEnforce3LetterCode4ISO"), "SKIPPED");
+    }
+
+    @Test
+    public void testOnlyFailedAndSkippedSelected() throws IOException, NoSuchMethodException {
+        File statusFile = createStatusFile("FAILED\t" + CURRENCIES_TEST + "#testISOCodes\n"
+                + "SUCCESS\t" + CURRENCIES_TEST + "#testEqualISOCurrencies\n"
+                + "SKIPPED\t" + CURRENCIES_TEST + "#testEnforce3LetterCode4ISO\n");
+        List<String> rerunTests = TCKRunner.getRerunTests(TCKRunner.TCKReporter.readResults(statusFile));
+        assertEquals(rerunTests, Arrays.asList(CURRENCIES_TEST + "#testISOCodes",
+                CURRENCIES_TEST + "#testEnforce3LetterCode4ISO"));
+        TCKRunner runner = new TCKRunner();
+        runner.setRerunTests(rerunTests);
+        List<Method> selected = runner.getSelectedTestMethods();
+        assertEquals(selected.size(), 2);
+        assertTrue(selected.contains(ModellingCurrenciesTest.class.getMethod("testISOCodes")));
+        assertTrue(selected.contains(ModellingCurrenciesTest.class.getMethod("testEnforce3LetterCode4ISO")));
+    }
+
+    @Test
+    public void testMergedSummary() throws IOException {
+        File reportFile = File.createTempFile("tck-results", ".txt");
+        reportFile.deleteOnExit();
+        File statusFile = TCKRunner.TCKReporter.getStatusFile(reportFile);
+        statusFile.deleteOnExit();
+        TCKRunner.TCKReporter.getReportFile(reportFile, "-timings.csv").deleteOnExit();
+        try (Writer w = new FileWriter(statusFile)) {
+            w.write("FAILED\t" + FIXTURE + "#testFixed\n"
+                    + "SKIPPED\t" + FIXTURE + "#testStillBroken\n"
+                    + "SUCCESS\t" + CURRENCIES_TEST + "#testEqualISOCurrencies\n");
+        }
+        Map<String, String> previousResults = TCKRunner.TCKReporter.readResults(statusFile);
+        TCKRunner.TCKReporter reporter = new TCKRunner.TCKReporter(reportFile);
+        reporter.setPreviousResults(previousResults);
+        TestNG tng = new TestNG();
+        tng.setUseDefaultListeners(false);
+        tng.setOutputDirectory(new File(reportFile.getParentFile(), "tck-rerun-output").getPath());
+        tng.setTestClasses(new Class[]{TCKRerunFixture.class});
+        tng.addListener(reporter);
+        tng.run();
+        reporter.writeSummary();
+
+        String report = new String(Files.readAllBytes(reportFile.toPath()), StandardCharsets.UTF_8);
+        assertTrue(report.contains("TESTS RE-EXECUTED    : 2 (skipped: 0, success: 1, failed: 1)\n"), report);
+        assertTrue(report.contains("RESULTS CARRIED OVER : 1\n"), report);
+        assertTrue(report.contains("TOTAL TESTS EXECUTED : 3\n"), report);
+        assertTrue(report.contains("TOTAL TESTS SKIPPED  : 0\n"), report);
+        assertTrue(report.contains("TOTAL TESTS SUCCESS  : 2\n"), report);
+        assertTrue(report.contains("TOTAL TESTS FAILED   : 1\n"), report);
+
+        Map<String, String> results = TCKRunner.TCKReporter.readResults(statusFile);
+        assertEquals(results.size(), 3);
+        assertEquals(results.get(FIXTURE + "#testFixed"), "SUCCESS");
+        assertEquals(results.get(FIXTURE + "#testStillBroken"), "FAILED");
+        assertEquals(results.get(CURRENCIES_TEST + "#testEqualISOCurrencies"), "SUCCESS");
+    }
+
+    private static File createStatusFile(String content) throws IOException {
+        File file = File.createTempFile("tck-results", ".status");
+        file.deleteOnExit();
+        try (Writer w = new FileWriter(file)) {
+            w.write(content);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2012, 2020, Werner Keil, Anatole Tresch. Licensed under the Apache
+ * License, Version 2.0 (the "License"); you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at http://www.apache.org/licenses/LICENSE-2.0
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License. Contributors: Anatole Tresch - initial version.
+ */
+package org.javamoney.tck;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+/**
+ * Test class for the sharding of the TCK, see {@link TCKRunner#setShard(int, int)}.
+ */
+public class TCKRunnerShardTest {
+
+    @Test
+    public void testShardsAreDisjointAndComplete() {
+        List<Method> all = new TCKRunner().getSelectedTestMethods();
+        for (int shardCount = 1; shardCount <= 4; shardCount++) {
+            Set<Method> union = new HashSet<>();
+            int total = 0;
+            for (int shard = 1; shard <= shardCount; shard++) {
+                List<Method> methods = getShard(shard, shardCount);
+                assertFalse(methods.isEmpty(), "Empty shard " + shard + '/' + shardCount);
+                for (Method method : methods) {
+                    assertTrue(union.add(method), method + " contained in several shards of " + shardCount);
+                }
+                total += methods.size();
+            }
+            assertEquals(total, all.size());
+            assertEquals(union, new HashSet<>(all));
+        }
+    }
+
+    @Test
+    public void testShardsAreDeterministic() {
+        for (int shard = 1; shard <= 3; shard++) {
+            assertEquals(getShard(shard, 3), getShard(shard, 3));
+        }
+    }
+
+    @Test
+    public void testShardsAreBalanced() {
+        int size = new TCKRunner().getSelectedTestMethods().size();
+        for (int shard = 1; shard <= 3; shard++) {
+            int shardSize = getShard(shard, 3).size();
+            assertTrue(shardSize >= size / 3 && shardSize <= size / 3 + 1, "Unbalanced shard size: " + shardSize);
+        }
+    }
+
+    @Test
+    public void testSingleShardSelectsAll() {
+        assertEquals(getShard(1, 1), new TCKRunner().getSelectedTestMethods());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testShardZero() {
+        new TCKRunner().setShard(0, 3);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testShardGreaterThanCount() {
+        new TCKRunner().setShard(4, 3);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testShardCountZero() {
+        new TCKRunner().setShard(1, 0);
+    }
+
+    @Test
+    public void testInvalidShardProperty() {
+        for (String shard : new String[]{"1", "1/", "/3", "a/3", "1/b", "0/3", "4/3", "1/3/5"}) {
+            String old = System.setProperty("shard", shard);
+            try {
+                new TCKRunner().run(System.in, System.out, System.err, TCKRunner.class.getName());
+                throw new AssertionError("Invalid shard accepted: " + shard);
+            } catch (IllegalArgumentException e) {
+                // expected
+            } finally {
+                if (old == null) {
+                    System.clearProperty("shard");
+                } else {
+                    System.setProperty("shard", old);
+                }
+            }
+        }
+    }
+
+    private static List<Method> getShard(int shard, int shardCount) {
+        TCKRunner runner = new TCKRunner();
+        runner.setShard(shard, shardCount);
+        return new ArrayList<>(runner.getSelectedTestMethods());
+    }
+}